@@ -0,0 +1,59 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares executing a busy nukleus once per {@link ForkJoinPool} submission with executing it for an adaptive
+ * quantum. Run with "single" or "quantum" (default) as the argument.
+ */
+public class FjpFreeStandingQuantumRunner
+{
+    public static void main(final String[] args) throws Exception
+    {
+        final boolean adaptiveQuantum = args.length == 0 || !"single".equals(args[0]);
+        final FjpFreeStandingNuklei nuklei = new FjpFreeStandingNuklei(
+            ForkJoinPool.commonPool(), NoOpIdler::new, adaptiveQuantum);
+        final long[] values = { 0 };
+
+        nuklei.spinUp(() ->
+        {
+            values[0]++;
+            return 1;
+        });
+
+        long lastValue = 0;
+        long lastTimestamp = System.nanoTime();
+
+        while (true)
+        {
+            Thread.sleep(1000);
+
+            final long value = values[0];
+            final long timestamp = System.nanoTime();
+            final long iterations = value - lastValue;
+
+            System.out.format("%s: %d iterations/s, %.1f ns/iteration%n",
+                adaptiveQuantum ? "quantum" : "single",
+                iterations * 1_000_000_000L / (timestamp - lastTimestamp),
+                iterations > 0 ? (double)(timestamp - lastTimestamp) / iterations : 0.0);
+
+            lastValue = value;
+            lastTimestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.jmh;
+
+import org.kaazing.nuklei.BackoffIdler;
+import org.kaazing.nuklei.BusySpinIdler;
+import org.kaazing.nuklei.DedicatedNuklei;
+import org.kaazing.nuklei.Idler;
+import org.kaazing.nuklei.NoOpIdler;
+import org.kaazing.nuklei.SpinYieldIdler;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Wakeup latency of an idle {@link DedicatedNuklei} against the CPU it burns while idle, per {@link Idler}.
+ *
+ * Each invocation first leaves the nuklei idle for a quiet period so the idler reaches its deepest state, then
+ * measures the round trip of a request through a nukleus. Idle CPU burn during the quiet periods is printed at the
+ * end of each iteration as a percentage of a core.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdlerWakeup
+{
+    private static final long QUIET_PERIOD_MS = 1;
+
+    @Param({"NO_OP", "BUSY_SPIN", "SPIN_YIELD", "BACKOFF"})
+    public String idlerType;
+
+    private final AtomicLong request = new AtomicLong();
+    private final AtomicLong response = new AtomicLong();
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+    private DedicatedNuklei nuklei;
+    private volatile long nukleiThreadId = -1;
+    private long lastRequest;
+    private long idleCpuNs;
+    private long idleWallNs;
+
+    @Setup(Level.Trial)
+    public void spinUp() throws Exception
+    {
+        nuklei = new DedicatedNuklei("idler-wakeup", newIdler(idlerType));
+        nuklei.spinUp(() ->
+        {
+            if (-1 == nukleiThreadId)
+            {
+                nukleiThreadId = Thread.currentThread().getId();
+            }
+
+            final long value = request.get();
+
+            if (value != lastRequest)
+            {
+                lastRequest = value;
+                response.lazySet(value);
+                return 1;
+            }
+
+            return 0;
+        });
+
+        while (-1 == nukleiThreadId)
+        {
+            Thread.yield();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown()
+    {
+        nuklei.stop();
+    }
+
+    @Setup(Level.Invocation)
+    public void quietPeriod() throws Exception
+    {
+        final long startCpuNs = threadMXBean.getThreadCpuTime(nukleiThreadId);
+        final long startWallNs = System.nanoTime();
+
+        Thread.sleep(QUIET_PERIOD_MS);
+
+        idleCpuNs += threadMXBean.getThreadCpuTime(nukleiThreadId) - startCpuNs;
+        idleWallNs += System.nanoTime() - startWallNs;
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportIdleCpu()
+    {
+        if (idleWallNs > 0)
+        {
+            System.out.format(" [%s idle CPU burn %.1f%%]", idlerType, (100.0 * idleCpuNs) / idleWallNs);
+        }
+
+        idleCpuNs = 0;
+        idleWallNs = 0;
+    }
+
+    @Benchmark
+    public long wakeup()
+    {
+        final long value = request.incrementAndGet();
+
+        while (response.get() != value)
+        {
+            // busy wait on the response so only the nuklei side is measured
+        }
+
+        return value;
+    }
+
+    private static Idler newIdler(final String type)
+    {
+        switch (type)
+        {
+            case "NO_OP":
+                return new NoOpIdler();
+            case "BUSY_SPIN":
+                return new BusySpinIdler(100);
+            case "SPIN_YIELD":
+                return new SpinYieldIdler(100);
+            case "BACKOFF":
+                return new BackoffIdler(100, 100, TimeUnit.MICROSECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(1));
+            default:
+                throw new IllegalArgumentException("unknown idler type " + type);
+        }
+    }
+}
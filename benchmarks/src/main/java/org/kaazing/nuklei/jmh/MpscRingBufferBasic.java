@@ -44,9 +44,15 @@ public class MpscRingBufferBasic
     private static final Integer VALUE = 102;
     private static final ThreadLocal<ReaderMarker> marker = new ThreadLocal<>();
 
+    @Param({"8", "16", "32", "64"})
+    public int alignment;
+
+    @Param({"READER", "WRITERS"})
+    public MpscRingBuffer.Zeroing zeroing;
+
     private final AtomicBuffer buffer = new AtomicBuffer(ByteBuffer.allocateDirect(64*1024 + MpscRingBuffer.STATE_TRAILER_SIZE));
-    private final MpscRingBufferWriter writer = new MpscRingBufferWriter(buffer);
-    private final MpscRingBufferReader reader = new MpscRingBufferReader(buffer);
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
     private final MpscRingBufferReader.ReadHandler handler = (typeId, buffer, index, length) -> {};
 
     private final AtomicBuffer srcBuffer = new AtomicBuffer(ByteBuffer.allocateDirect(BitUtil.SIZE_OF_INT));
@@ -66,6 +72,14 @@ public class MpscRingBufferBasic
         srcBuffer.putInt(0, VALUE);
     }
 
+    @Setup
+    public void initRingBuffer()
+    {
+        MpscRingBuffer.initialize(buffer, alignment, zeroing);
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
+    }
+
     @TearDown(Level.Iteration)
     public void emptyBuffer()
     {
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.jmh;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferBatch;
+import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferReader;
+import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferWriter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Control;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writers publishing BATCH_SIZE messages per operation, either one claim per message or one per batch, 1 reader.
+ *
+ * Number of writers is set on the command line, e.g. -tg 16,1 for 16 writers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MpscRingBufferBatched
+{
+    private static final int MSG_TYPE_ID = 101;
+    private static final Integer VALUE = 102;
+    private static final int BATCH_SIZE = 16;
+    private static final ThreadLocal<ReaderMarker> marker = new ThreadLocal<>();
+
+    private final AtomicBuffer buffer =
+        new AtomicBuffer(ByteBuffer.allocateDirect(256*1024 + MpscRingBuffer.STATE_TRAILER_SIZE));
+    private final MpscRingBufferWriter writer = new MpscRingBufferWriter(buffer);
+    private final MpscRingBufferReader reader = new MpscRingBufferReader(buffer);
+    private final MpscRingBufferReader.ReadHandler handler = (typeId, buffer, index, length) -> {};
+
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(ByteBuffer.allocateDirect(BitUtil.SIZE_OF_INT));
+
+    @State(Scope.Thread)
+    public static class ReaderMarker
+    {
+        public ReaderMarker()
+        {
+            marker.set(this);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class WriterBatch
+    {
+        public final MpscRingBufferBatch batch = new MpscRingBufferBatch(BATCH_SIZE * MpscRingBuffer.MESSAGE_ALIGNMENT);
+    }
+
+    @Setup
+    public void initSrcBuffer()
+    {
+        srcBuffer.putInt(0, VALUE);
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyBuffer()
+    {
+        // used to indicate reader
+        if (null == marker.get())
+        {
+            return;
+        }
+
+        while (reader.read(handler, Integer.MAX_VALUE) != 0)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(2)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void writeSingle(final Control control)
+    {
+        for (int i = 0; i < BATCH_SIZE; i++)
+        {
+            while(!writer.write(MSG_TYPE_ID, srcBuffer, 0, BitUtil.SIZE_OF_INT) && !control.stopMeasurement)
+            {
+                Thread.yield();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("single")
+    @GroupThreads(1)
+    public void readSingle(final Control control, final ReaderMarker marker)
+    {
+        while(reader.read(handler, Integer.MAX_VALUE) == 0 && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+    }
+
+    @Benchmark
+    @Group("batched")
+    @GroupThreads(2)
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void writeBatched(final Control control, final WriterBatch writerBatch)
+    {
+        final MpscRingBufferBatch batch = writerBatch.batch;
+
+        for (int i = 0; i < BATCH_SIZE; i++)
+        {
+            batch.add(MSG_TYPE_ID, srcBuffer, 0, BitUtil.SIZE_OF_INT);
+        }
+
+        while(!writer.writeBatch(batch) && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+
+        batch.clear();
+    }
+
+    @Benchmark
+    @Group("batched")
+    @GroupThreads(1)
+    public void readBatched(final Control control, final ReaderMarker marker)
+    {
+        while(reader.read(handler, Integer.MAX_VALUE) == 0 && !control.stopMeasurement)
+        {
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.jmh;
+
+import org.kaazing.nuklei.NioSelectorNukleus;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Select and dispatch over many ready channels with the selector's own selected-key set and with the array backed
+ * replacement.
+ *
+ * Each pipe has a byte pending that is never read, so every select returns all channels as readable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(3)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NioSelectorDispatch
+{
+    @Param({ "false", "true" })
+    public boolean optimizeSelectedKeys;
+
+    @Param({ "4096" })
+    public int channels;
+
+    private Pipe[] pipes;
+    private NioSelectorNukleus nukleus;
+
+    @Setup
+    public void setup() throws Exception
+    {
+        nukleus = new NioSelectorNukleus(Selector.open(), optimizeSelectedKeys);
+
+        if (optimizeSelectedKeys && !nukleus.isSelectedKeySetOptimized())
+        {
+            throw new IllegalStateException("selected-key set could not be replaced on this JDK");
+        }
+
+        pipes = new Pipe[channels];
+
+        for (int i = 0; i < channels; i++)
+        {
+            pipes[i] = Pipe.open();
+            pipes[i].source().configureBlocking(false);
+            pipes[i].sink().write(ByteBuffer.wrap(new byte[] { 1 }));
+            nukleus.register(pipes[i].source(), SelectionKey.OP_READ, () -> 1);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception
+    {
+        for (final Pipe pipe : pipes)
+        {
+            pipe.source().close();
+            pipe.sink().close();
+        }
+
+        nukleus.selector.close();
+    }
+
+    @Benchmark
+    public int selectAndDispatch()
+    {
+        return nukleus.process();
+    }
+}
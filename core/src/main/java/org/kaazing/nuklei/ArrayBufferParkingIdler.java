@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+
+/**
+ * Idler for a thread whose work arrives through a single {@link MpscArrayBuffer}, that parks the thread in the buffer
+ * once it has been idle for a number of passes. Writers unpark it, so a quiet service gives up its core without
+ * losing responsiveness.
+ */
+public class ArrayBufferParkingIdler implements Idler
+{
+    public static final int DEFAULT_IDLE_PASSES = 100;
+    public static final long DEFAULT_PARK_TIMEOUT_NS = 100L * 1000 * 1000;
+
+    private final MpscArrayBuffer<?> buffer;
+    private final int idlePassesBeforeParking;
+    private final long parkTimeoutNs;
+
+    private int idlePasses;
+
+    public ArrayBufferParkingIdler(final MpscArrayBuffer<?> buffer)
+    {
+        this(buffer, DEFAULT_IDLE_PASSES, DEFAULT_PARK_TIMEOUT_NS);
+    }
+
+    /**
+     * Construct a parking idler.
+     *
+     * @param buffer read by the thread, to park in
+     * @param idlePassesBeforeParking number of passes without work before parking
+     * @param parkTimeoutNs to park for at most, so other nuklei on the thread are still serviced
+     */
+    public ArrayBufferParkingIdler(
+        final MpscArrayBuffer<?> buffer, final int idlePassesBeforeParking, final long parkTimeoutNs)
+    {
+        if (parkTimeoutNs < 1)
+        {
+            throw new IllegalArgumentException("park timeout must be positive");
+        }
+
+        this.buffer = buffer;
+        this.idlePassesBeforeParking = idlePassesBeforeParking;
+        this.parkTimeoutNs = parkTimeoutNs;
+    }
+
+    /** {@inheritDoc} */
+    public void idle(final int weight)
+    {
+        if (weight > 0)
+        {
+            idlePasses = 0;
+            return;
+        }
+
+        // stay past the idle threshold so a quiet thread goes straight back to parking
+        if (++idlePasses >= idlePassesBeforeParking)
+        {
+            buffer.park(parkTimeoutNs);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Idler that spins, then yields, then parks with an exponentially increasing period.
+ *
+ * Any iteration that did work resets the idler, so the busy path only pays a single branch.
+ */
+public class BackoffIdler implements Idler
+{
+    public enum State
+    {
+        NOT_IDLE,
+        SPINNING,
+        YIELDING,
+        PARKING
+    }
+
+    private final int maxSpins;
+    private final int maxYields;
+    private final long minParkPeriodNs;
+    private final long maxParkPeriodNs;
+
+    private State state;
+    private int spins;
+    private int yields;
+    private long parkPeriodNs;
+
+    /**
+     * Construct a back off idler.
+     *
+     * @param maxSpins number of idle iterations to spin before yielding
+     * @param maxYields number of idle iterations to yield before parking
+     * @param minParkPeriodNs to park for on the first parking iteration
+     * @param maxParkPeriodNs to cap the exponentially increasing park period at
+     */
+    public BackoffIdler(
+        final int maxSpins, final int maxYields, final long minParkPeriodNs, final long maxParkPeriodNs)
+    {
+        if (minParkPeriodNs < 1 || maxParkPeriodNs < minParkPeriodNs)
+        {
+            throw new IllegalArgumentException("park periods must be positive and max must not be less than min");
+        }
+
+        this.maxSpins = maxSpins;
+        this.maxYields = maxYields;
+        this.minParkPeriodNs = minParkPeriodNs;
+        this.maxParkPeriodNs = maxParkPeriodNs;
+        this.state = State.NOT_IDLE;
+    }
+
+    /** {@inheritDoc} */
+    public void idle(final int weight)
+    {
+        if (weight > 0)
+        {
+            if (State.NOT_IDLE != state)
+            {
+                state = State.NOT_IDLE;
+            }
+            return;
+        }
+
+        if (State.NOT_IDLE == state)
+        {
+            state = State.SPINNING;
+            spins = 0;
+        }
+
+        if (State.SPINNING == state)
+        {
+            if (++spins <= maxSpins)
+            {
+                return;
+            }
+
+            state = State.YIELDING;
+            yields = 0;
+        }
+
+        if (State.YIELDING == state)
+        {
+            if (++yields <= maxYields)
+            {
+                Thread.yield();
+                return;
+            }
+
+            state = State.PARKING;
+            parkPeriodNs = minParkPeriodNs;
+        }
+
+        LockSupport.parkNanos(parkPeriodNs);
+        parkPeriodNs = Math.min(parkPeriodNs << 1, maxParkPeriodNs);
+    }
+
+    /**
+     * Return the current state of the idler.
+     *
+     * @return state of the idler
+     */
+    public State state()
+    {
+        return state;
+    }
+
+    /**
+     * Return the period the next park is for, once the idler is parking.
+     *
+     * @return park period in nanoseconds
+     */
+    public long parkPeriodNs()
+    {
+        return parkPeriodNs;
+    }
+}
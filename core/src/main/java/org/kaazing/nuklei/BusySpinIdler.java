@@ -0,0 +1,54 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+/**
+ * Idler that busy spins on the current core for a fixed number of iterations when no work was done.
+ *
+ * The thread never gives up the CPU, but spacing out polls keeps it from hammering cache lines shared with
+ * producers while idle.
+ */
+public class BusySpinIdler implements Idler
+{
+    private final int spins;
+
+    private volatile int spinCounter;
+
+    /**
+     * Construct an idler that spins for a given number of iterations when idle.
+     *
+     * @param spins to perform per idle call
+     */
+    public BusySpinIdler(final int spins)
+    {
+        this.spins = spins;
+    }
+
+    /** {@inheritDoc} */
+    public void idle(final int weight)
+    {
+        if (weight > 0)
+        {
+            return;
+        }
+
+        // volatile read/write keeps the JIT from removing the loop
+        for (int i = 0; i < spins; i++)
+        {
+            spinCounter++;
+        }
+    }
+}
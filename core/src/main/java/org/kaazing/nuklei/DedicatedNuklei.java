@@ -15,8 +15,13 @@
  */
 package org.kaazing.nuklei;
 
+import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+import org.kaazing.nuklei.concurrent.WakeupSignal;
+
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 /**
  * DedicatedNuklei is a thread that holds a group of Nukleus'
@@ -25,20 +30,76 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class DedicatedNuklei implements Nuklei, Runnable
 {
+    /**
+     * How the thread divides its passes between its Nukleus'
+     */
+    public enum Scheduling
+    {
+        /** every nukleus is processed exactly once per pass */
+        ROUND_ROBIN,
+        /** nuklei reporting work get extra iterations, idle nuklei are skipped for a growing number of passes */
+        WEIGHTED
+    }
+
+    /** maximum consecutive calls given to a nukleus within a single pass while it keeps reporting work */
+    public static final int MAX_BURST = 16;
+    /** consecutive passes with no work before a nukleus starts being skipped */
+    public static final int IDLE_PASSES_BEFORE_BACKOFF = 4;
+    /** maximum number of passes a nukleus is skipped for */
+    public static final int MAX_BACKOFF_PASSES = 64;
+
+    private static final int COMMAND_QUEUE_SIZE = 64;
+    private static final int COMMAND_READ_LIMIT = 10;
+
     private final Thread thread;
-    private final AtomicReference<Nukleus[]> nukleusArrayRef;
+    private final AtomicReference<Slot[]> slotArrayRef;
+    private final Idler idler;
+    private final Scheduling scheduling;
+    private final MpscArrayBuffer<Object> commandQueue;
+    private final Consumer<Object> commandHandler;
+    private final AtomicLong passCounter;
+    private final AtomicLong busyPassCounter;
 
     private volatile boolean done;
 
     public DedicatedNuklei(final String name)
+    {
+        this(name, new NoOpIdler());
+    }
+
+    /**
+     * Construct a dedicated thread that passes the aggregated weight of each pass over its Nukleus' to an {@link Idler}
+     *
+     * @param name of the thread
+     * @param idler to call after each pass
+     */
+    public DedicatedNuklei(final String name, final Idler idler)
+    {
+        this(name, idler, Scheduling.ROUND_ROBIN);
+    }
+
+    /**
+     * Construct a dedicated thread with a given scheduling of its Nukleus'
+     *
+     * @param name of the thread
+     * @param idler to call after each pass
+     * @param scheduling of the Nukleus' within each pass
+     */
+    public DedicatedNuklei(final String name, final Idler idler, final Scheduling scheduling)
     {
         thread = new Thread(this);
-        nukleusArrayRef = new AtomicReference<>();
+        slotArrayRef = new AtomicReference<>();
+        this.idler = idler;
+        this.scheduling = scheduling;
+        commandQueue = new MpscArrayBuffer<>(COMMAND_QUEUE_SIZE);
+        commandHandler = this::onCommand;
+        passCounter = new AtomicLong();
+        busyPassCounter = new AtomicLong();
 
-        final Nukleus[] initialArray = new Nukleus[0];
+        final Slot[] initialArray = new Slot[0];
 
         thread.setName(name);
-        nukleusArrayRef.set(initialArray);
+        slotArrayRef.set(initialArray);
         done = false;
         thread.start();
     }
@@ -54,6 +115,8 @@ public class DedicatedNuklei implements Nuklei, Runnable
 
         do
         {
+            wakeUp();
+
             try
             {
                 thread.join(100);
@@ -74,24 +137,183 @@ public class DedicatedNuklei implements Nuklei, Runnable
 
     public void spinUp(final Nukleus nukleus)
     {
-        Nukleus[] oldArray = nukleusArrayRef.get();
-        Nukleus[] newArray = Arrays.copyOf(oldArray, oldArray.length + 1);
+        final Slot slot = new Slot(nukleus);
+        Slot[] oldArray;
+        Slot[] newArray;
+
+        do
+        {
+            oldArray = slotArrayRef.get();
+            newArray = Arrays.copyOf(oldArray, oldArray.length + 1);
+            newArray[oldArray.length] = slot;
+        }
+        while (!slotArrayRef.compareAndSet(oldArray, newArray));
+    }
+
+    /**
+     * Remove a {@link Nukleus} at the next safe point between {@link Nukleus#process()} calls.
+     *
+     * @param nukleus to remove
+     */
+    public void spinDown(final Nukleus nukleus)
+    {
+        migrate(nukleus, null);
+    }
+
+    /**
+     * Move a {@link Nukleus} to another {@link Nuklei}. The nukleus is removed at the next safe point between
+     * {@link Nukleus#process()} calls and only then spun up on the target, so it is never processed by both at once.
+     *
+     * @param nukleus to move
+     * @param target to spin the nukleus up on, or null to just remove it
+     */
+    public void migrate(final Nukleus nukleus, final Nuklei target)
+    {
+        if (!commandQueue.write(new MigrateCmd(nukleus, target)))
+        {
+            throw new IllegalStateException("could not write command");
+        }
+    }
+
+    /**
+     * Return the number of {@link Nukleus}' currently held.
+     *
+     * @return number of nuklei
+     */
+    public int nukleusCount()
+    {
+        return slotArrayRef.get().length;
+    }
+
+    /**
+     * Return the number of passes made over the held {@link Nukleus}'.
+     *
+     * @return number of passes
+     */
+    public long passes()
+    {
+        return passCounter.get();
+    }
+
+    /**
+     * Return the number of passes in which at least one {@link Nukleus} reported work. Compared with
+     * {@link #passes()} over an interval this gives the duty cycle of the thread.
+     *
+     * @return number of passes that did work
+     */
+    public long busyPasses()
+    {
+        return busyPassCounter.get();
+    }
 
-        newArray[oldArray.length] = nukleus;
+    /**
+     * Return the number of {@link Nukleus#process()} calls on a given nukleus that reported work.
+     *
+     * @param nukleus to return the count for
+     * @return number of calls that did work or -1 if the nukleus is not held
+     */
+    public long busyCalls(final Nukleus nukleus)
+    {
+        for (final Slot slot : slotArrayRef.get())
+        {
+            if (slot.nukleus == nukleus)
+            {
+                return slot.busyCallCounter.get();
+            }
+        }
 
-        nukleusArrayRef.lazySet(newArray);
+        return -1;
     }
 
     public void run()
+    {
+        if (Scheduling.WEIGHTED == scheduling)
+        {
+            runWeighted();
+        }
+        else
+        {
+            runRoundRobin();
+        }
+    }
+
+    private void runRoundRobin()
+    {
+        while (!done)
+        {
+            commandQueue.read(commandHandler, COMMAND_READ_LIMIT);
+
+            final Slot[] slots = slotArrayRef.get();
+            int weight = 0;
+
+            for (final Slot slot: slots)
+            {
+                final int slotWeight = slot.nukleus.process();
+
+                if (slotWeight > 0)
+                {
+                    weight += slotWeight;
+                    slot.busyCall();
+                }
+
+                if (done)
+                {
+                    return;
+                }
+            }
+
+            countPass(weight);
+            idler.idle(weight);
+        }
+    }
+
+    private void runWeighted()
     {
         while (!done)
         {
-            final Nukleus[] nuklei = nukleusArrayRef.get();
+            commandQueue.read(commandHandler, COMMAND_READ_LIMIT);
+
+            final Slot[] slots = slotArrayRef.get();
             int weight = 0;
+            boolean skipped = false;
 
-            for (final Nukleus nukleus: nuklei)
+            for (final Slot slot: slots)
             {
-                weight += nukleus.process();
+                if (slot.skipPasses > 0)
+                {
+                    slot.skipPasses--;
+                    skipped = true;
+                    continue;
+                }
+
+                int slotWeight = slot.nukleus.process();
+
+                if (slotWeight > 0)
+                {
+                    int burst = 1;
+
+                    while (slotWeight > 0 && burst < MAX_BURST)
+                    {
+                        weight += slotWeight;
+                        slot.busyCall();
+                        slotWeight = slot.nukleus.process();
+                        burst++;
+                    }
+
+                    if (slotWeight > 0)
+                    {
+                        weight += slotWeight;
+                        slot.busyCall();
+                    }
+
+                    slot.idlePasses = 0;
+                    slot.backoffPasses = 0;
+                }
+                else if (++slot.idlePasses >= IDLE_PASSES_BEFORE_BACKOFF)
+                {
+                    slot.backoffPasses = Math.min(Math.max(slot.backoffPasses << 1, 1), MAX_BACKOFF_PASSES);
+                    slot.skipPasses = slot.backoffPasses;
+                }
 
                 if (done)
                 {
@@ -99,8 +321,119 @@ public class DedicatedNuklei implements Nuklei, Runnable
                 }
             }
 
-            // TODO: add idle strategy (spin, yield, then park) and pass weight to it
+            // the idler backs off on an idle pass, so skipped nuklei are polled again after it rather than the two
+            // backoffs multiplying
+            if (0 == weight && skipped)
+            {
+                for (final Slot slot: slots)
+                {
+                    slot.skipPasses = 0;
+                }
+            }
+
+            countPass(weight);
+            idler.idle(weight);
+        }
+    }
+
+    // an idler blocked in a select would otherwise only notice done once its timeout elapses
+    private void wakeUp()
+    {
+        if (idler instanceof WakeupSignal)
+        {
+            ((WakeupSignal)idler).signal();
+        }
+    }
+
+    private void countPass(final int weight)
+    {
+        passCounter.lazySet(passCounter.get() + 1);
+
+        if (weight > 0)
+        {
+            busyPassCounter.lazySet(busyPassCounter.get() + 1);
+        }
+    }
+
+    // called on the dedicated thread between passes, so no process() call is in flight
+    private void onCommand(final Object obj)
+    {
+        if (obj instanceof MigrateCmd)
+        {
+            final MigrateCmd cmd = (MigrateCmd)obj;
+
+            if (remove(cmd.nukleus) && null != cmd.target)
+            {
+                cmd.target.spinUp(cmd.nukleus);
+            }
+        }
+    }
+
+    private boolean remove(final Nukleus nukleus)
+    {
+        Slot[] oldArray;
+        Slot[] newArray;
+
+        do
+        {
+            oldArray = slotArrayRef.get();
+
+            int index = -1;
+            for (int i = 0; i < oldArray.length; i++)
+            {
+                if (oldArray[i].nukleus == nukleus)
+                {
+                    index = i;
+                    break;
+                }
+            }
+
+            if (-1 == index)
+            {
+                return false;
+            }
+
+            newArray = new Slot[oldArray.length - 1];
+            System.arraycopy(oldArray, 0, newArray, 0, index);
+            System.arraycopy(oldArray, index + 1, newArray, index, newArray.length - index);
         }
+        while (!slotArrayRef.compareAndSet(oldArray, newArray));
+
+        return true;
     }
 
+    private static class MigrateCmd
+    {
+        private final Nukleus nukleus;
+        private final Nuklei target;
+
+        MigrateCmd(final Nukleus nukleus, final Nuklei target)
+        {
+            this.nukleus = nukleus;
+            this.target = target;
+        }
+    }
+
+    /*
+     * Per nukleus scheduling state, only written by the dedicated thread
+     */
+    private static class Slot
+    {
+        private final Nukleus nukleus;
+        private final AtomicLong busyCallCounter = new AtomicLong();
+
+        private int idlePasses;
+        private int backoffPasses;
+        private int skipPasses;
+
+        Slot(final Nukleus nukleus)
+        {
+            this.nukleus = nukleus;
+        }
+
+        void busyCall()
+        {
+            busyCallCounter.lazySet(busyCallCounter.get() + 1);
+        }
+    }
 }
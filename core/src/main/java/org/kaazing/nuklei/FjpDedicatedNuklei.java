@@ -16,21 +16,31 @@
 
 package org.kaazing.nuklei;
 
+import org.kaazing.nuklei.concurrent.WakeupSignal;
+
 import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * {@link java.util.concurrent.ForkJoinPool} based scheduler that uses a dedicated submitter thread
+ *
+ * Nuklei spun up with {@link #spinUp(Nukleus)} are polled, i.e. resubmitted as soon as their previous
+ * {@link Nukleus#process()} completes. Nuklei spun up with {@link #spinUpSignalled(Nukleus)} are only submitted
+ * once their {@link WakeupSignal} has been raised or their last call reported work. When every nukleus is
+ * signalled and none is runnable, the submitter thread parks until a signal arrives.
  */
 public class FjpDedicatedNuklei implements Nuklei, Runnable
 {
     private final ForkJoinPool pool;
     private final AtomicReference<Wrapper[]> nukleusArrayRef;
     private final Thread schedulerThread;
+    private final Idler idler;
 
     private volatile boolean done;
+    private volatile boolean parked;
 
     public FjpDedicatedNuklei()
     {
@@ -38,8 +48,21 @@ public class FjpDedicatedNuklei implements Nuklei, Runnable
     }
 
     public FjpDedicatedNuklei(final ForkJoinPool pool)
+    {
+        this(pool, new NoOpIdler());
+    }
+
+    /**
+     * Construct a scheduler whose submitter thread passes the aggregated weight of completed
+     * {@link Nukleus#process()} calls to an {@link Idler} after each pass
+     *
+     * @param pool to submit to
+     * @param idler to call after each pass
+     */
+    public FjpDedicatedNuklei(final ForkJoinPool pool, final Idler idler)
     {
         this.pool = pool;
+        this.idler = idler;
         this.schedulerThread = new Thread(this);
         this.nukleusArrayRef = new AtomicReference<>();
 
@@ -50,14 +73,38 @@ public class FjpDedicatedNuklei implements Nuklei, Runnable
         schedulerThread.start();
     }
 
+    /** {@inheritDoc} */
     public void spinUp(final Nukleus nukleus)
     {
-        Wrapper[] oldArray = nukleusArrayRef.get();
-        Wrapper[] newArray = Arrays.copyOf(oldArray, oldArray.length + 1);
+        add(new Wrapper(nukleus, false));
+    }
+
+    /**
+     * Spin up a {@link Nukleus} that is only submitted when signalled. The returned {@link WakeupSignal} should be
+     * handed to whatever produces work for the nukleus, e.g.
+     * {@link org.kaazing.nuklei.concurrent.MpscArrayBuffer#wakeupSignal(WakeupSignal)}. The nukleus is runnable
+     * once initially.
+     *
+     * @param nukleus to spin up
+     * @return signal that marks the nukleus runnable
+     */
+    public WakeupSignal spinUpSignalled(final Nukleus nukleus)
+    {
+        final Wrapper wrapper = new Wrapper(nukleus, true);
 
-        newArray[oldArray.length] = new Wrapper(nukleus);
+        add(wrapper);
+        wrapper.signal();
 
-        nukleusArrayRef.lazySet(newArray);
+        return wrapper;
+    }
+
+    /**
+     * Stop the submitter thread. Submissions in flight finish asynchronously.
+     */
+    public void stop()
+    {
+        done = true;
+        LockSupport.unpark(schedulerThread);
     }
 
     public void run()
@@ -66,15 +113,26 @@ public class FjpDedicatedNuklei implements Nuklei, Runnable
         while (!done)
         {
             final Wrapper[] nuklei = nukleusArrayRef.get();
+            boolean polled = false;
+            boolean inFlight = false;
+            int submitted = 0;
             int weight = 0;
 
             for (final Wrapper nukleus: nuklei)
             {
-                if (!nukleus.isInProcess())
+                polled |= !nukleus.signalled;
+
+                if (!nukleus.isInProcess() && nukleus.isRunnable())
                 {
+                    weight += nukleus.lastWeight();
                     nukleus.inProcess(true);
+                    nukleus.clearRunnable();
                     pool.execute(nukleus);
-                    weight++;
+                    submitted++;
+                }
+                else
+                {
+                    inFlight |= nukleus.isInProcess();
                 }
 
                 if (done)
@@ -83,18 +141,111 @@ public class FjpDedicatedNuklei implements Nuklei, Runnable
                 }
             }
 
-            // TODO: add idle strategy (spin, yield) and pass weight to it
+            if (0 != submitted)
+            {
+                idler.idle(weight);
+            }
+            else if (!polled)
+            {
+                park(nuklei);
+            }
+            else if (!inFlight)
+            {
+                idler.idle(0);
+            }
+            // else nothing has completed yet, so keep polling without backing off
+        }
+    }
+
+    private void add(final Wrapper wrapper)
+    {
+        Wrapper[] oldArray;
+        Wrapper[] newArray;
+
+        do
+        {
+            oldArray = nukleusArrayRef.get();
+            newArray = Arrays.copyOf(oldArray, oldArray.length + 1);
+            newArray[oldArray.length] = wrapper;
+        }
+        while (!nukleusArrayRef.compareAndSet(oldArray, newArray));
+
+        wakeUp();
+    }
+
+    private void park(final Wrapper[] nuklei)
+    {
+        // announce intent before the final check, signallers read parked after making a nukleus runnable
+        parked = true;
+
+        if (nuklei == nukleusArrayRef.get() && !hasSubmittable(nuklei) && !done)
+        {
+            LockSupport.park(this);
+        }
+
+        parked = false;
+    }
+
+    private void wakeUp()
+    {
+        if (parked)
+        {
+            LockSupport.unpark(schedulerThread);
+        }
+    }
+
+    private static boolean hasSubmittable(final Wrapper[] nuklei)
+    {
+        for (final Wrapper nukleus: nuklei)
+        {
+            if (!nukleus.isInProcess() && nukleus.isRunnable())
+            {
+                return true;
+            }
         }
+
+        return false;
     }
 
-    private static class Wrapper implements Runnable
+    private class Wrapper implements Runnable, WakeupSignal
     {
         private final AtomicBoolean inProcess = new AtomicBoolean(false);
+        private final AtomicBoolean runnable = new AtomicBoolean(false);
         private final Nukleus nukleus;
+        private final boolean signalled;
+
+        private int lastWeight;
 
-        Wrapper(final Nukleus nukleus)
+        Wrapper(final Nukleus nukleus, final boolean signalled)
         {
             this.nukleus = nukleus;
+            this.signalled = signalled;
+        }
+
+        public boolean isRunnable()
+        {
+            return !signalled || runnable.get();
+        }
+
+        // volatile store so a signal that raced with the previous process() call is never lost
+        public void clearRunnable()
+        {
+            if (signalled)
+            {
+                runnable.set(false);
+            }
+        }
+
+        /** {@inheritDoc} */
+        public void signal()
+        {
+            // order the producer's writes before reading runnable, pairs with the volatile store in clearRunnable()
+            BitUtil.UNSAFE.fullFence();
+
+            if (!runnable.get() && runnable.compareAndSet(false, true) && !isInProcess())
+            {
+                wakeUp();
+            }
         }
 
         public boolean isInProcess()
@@ -107,10 +258,34 @@ public class FjpDedicatedNuklei implements Nuklei, Runnable
             inProcess.lazySet(value);
         }
 
+        // only valid once isInProcess() has returned false, which orders it after the write in run()
+        public int lastWeight()
+        {
+            return lastWeight;
+        }
+
         public void run()
         {
-            nukleus.process();
-            inProcess.lazySet(false);
+            lastWeight = nukleus.process();
+
+            if (!signalled)
+            {
+                inProcess.lazySet(false);
+            }
+            else
+            {
+                if (lastWeight > 0)
+                {
+                    runnable.lazySet(true);  // may have more to do
+                }
+
+                inProcess.set(false);
+
+                if (runnable.get())
+                {
+                    wakeUp();
+                }
+            }
         }
     }
 }
@@ -19,17 +19,37 @@ package org.kaazing.nuklei;
 import java.util.Arrays;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * {@link ForkJoinPool} based scheduler that does not use a submitter thread
  * but instead re-executes as last step in run.
+ *
+ * With an adaptive quantum, each execution calls {@link Nukleus#process()} repeatedly while it reports work, up to a
+ * quantum of calls and a time budget, before re-executing. The quantum doubles when it is used up with work still
+ * pending and halves when the nukleus runs out of work on the first call. The {@link Idler} is given the sum of the
+ * weights reported over the execution.
  */
 public class FjpFreeStandingNuklei
 {
     public static final int SPINS = 100;
 
+    /** smallest number of process() calls per execution */
+    public static final int MIN_QUANTUM = 1;
+
+    /** largest number of process() calls per execution */
+    public static final int MAX_QUANTUM = 1024;
+
+    /** time after which an execution yields back to the pool even if the quantum is not used up */
+    public static final long QUANTUM_TIME_BUDGET_NS = 50_000;
+
+    /** number of process() calls between checks of the time budget, power of 2 */
+    public static final int TIME_CHECK_INTERVAL = 16;
+
     private final ForkJoinPool pool;
     private final AtomicReference<Wrapper[]> nukleusArrayRef;
+    private final Supplier<Idler> idlerSupplier;
+    private final boolean adaptiveQuantum;
 
     public FjpFreeStandingNuklei()
     {
@@ -37,8 +57,34 @@ public class FjpFreeStandingNuklei
     }
 
     public FjpFreeStandingNuklei(final ForkJoinPool pool)
+    {
+        this(pool, () -> new FjpManagedBlockerIdler(SPINS));
+    }
+
+    /**
+     * Construct a scheduler that gives each {@link Nukleus} its own {@link Idler}
+     *
+     * @param pool to execute on
+     * @param idlerSupplier to create an idler per nukleus spun up
+     */
+    public FjpFreeStandingNuklei(final ForkJoinPool pool, final Supplier<Idler> idlerSupplier)
+    {
+        this(pool, idlerSupplier, false);
+    }
+
+    /**
+     * Construct a scheduler that gives each {@link Nukleus} its own {@link Idler}
+     *
+     * @param pool to execute on
+     * @param idlerSupplier to create an idler per nukleus spun up
+     * @param adaptiveQuantum whether to call process() more than once per execution while there is work
+     */
+    public FjpFreeStandingNuklei(
+        final ForkJoinPool pool, final Supplier<Idler> idlerSupplier, final boolean adaptiveQuantum)
     {
         this.pool = pool;
+        this.idlerSupplier = idlerSupplier;
+        this.adaptiveQuantum = adaptiveQuantum;
         this.nukleusArrayRef = new AtomicReference<>();
 
         final Wrapper[] initialArray = new Wrapper[0];
@@ -51,33 +97,76 @@ public class FjpFreeStandingNuklei
         Wrapper[] oldArray = nukleusArrayRef.get();
         Wrapper[] newArray = Arrays.copyOf(oldArray, oldArray.length + 1);
 
-        newArray[oldArray.length] = new Wrapper(nukleus, pool);
+        newArray[oldArray.length] = new Wrapper(nukleus, pool, idlerSupplier.get(), adaptiveQuantum);
 
         pool.execute(newArray[oldArray.length]);
 
         nukleusArrayRef.lazySet(newArray);
     }
 
-    private static class Wrapper implements Runnable
+    static class Wrapper implements Runnable
     {
         private final Nukleus nukleus;
         private final ForkJoinPool pool;
-        private final FjpManagedBlockerIdler idler;
+        private final Idler idler;
+        private final boolean adaptiveQuantum;
+
+        private int quantum = MIN_QUANTUM;
 
-        Wrapper(final Nukleus nukleus, final ForkJoinPool pool)
+        Wrapper(final Nukleus nukleus, final ForkJoinPool pool, final Idler idler, final boolean adaptiveQuantum)
         {
             this.nukleus = nukleus;
             this.pool = pool;
-            this.idler = new FjpManagedBlockerIdler(SPINS);
+            this.idler = idler;
+            this.adaptiveQuantum = adaptiveQuantum;
         }
 
         public void run()
         {
-            final int weight = nukleus.process();
+            final int weight = adaptiveQuantum ? processQuantum() : nukleus.process();
 
             idler.idle(weight);
 
             pool.execute(this);
         }
+
+        int quantum()
+        {
+            return quantum;
+        }
+
+        // returns the weight of the whole quantum, so the idler sees all the work done by the execution
+        int processQuantum()
+        {
+            final long deadline = System.nanoTime() + QUANTUM_TIME_BUDGET_NS;
+            int iterations = 0;
+            int totalWeight = 0;
+            int weight;
+
+            do
+            {
+                weight = nukleus.process();
+                totalWeight += weight;
+                iterations++;
+
+                if (0 == (iterations & (TIME_CHECK_INTERVAL - 1)) && System.nanoTime() >= deadline)
+                {
+                    quantum = iterations;  // what fits in the budget
+                    return totalWeight;
+                }
+            }
+            while (weight > 0 && iterations < quantum);
+
+            if (weight > 0)
+            {
+                quantum = Math.min(quantum << 1, MAX_QUANTUM);
+            }
+            else if (1 == iterations)
+            {
+                quantum = Math.max(quantum >> 1, MIN_QUANTUM);
+            }
+
+            return totalWeight;
+        }
     }
 }
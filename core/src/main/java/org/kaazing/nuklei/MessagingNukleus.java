@@ -17,10 +17,10 @@ package org.kaazing.nuklei;
 
 import org.kaazing.nuklei.concurrent.ArrayBufferReader;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
-import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader;
+import org.kaazing.nuklei.concurrent.WakeupSignal;
 import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferReader;
 
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 /**
@@ -28,17 +28,36 @@ import java.util.function.Consumer;
  */
 public class MessagingNukleus implements Nukleus
 {
-    private static final RingBufferReader NULL_RING_BUFFER_READER = (handler, limit) -> 0;
-    private static final ArrayBufferReader<Object> NULL_ARRAY_BUFFER_READER = (handler, limit) -> 0;
+    /** largest batch drained from an array buffer at a time, so a large read limit is not an allocation size */
+    public static final int MAX_ARRAY_BUFFER_BATCH = 1024;
+
+    private static final ArrayBufferReader<Object> NULL_ARRAY_BUFFER_READER = new ArrayBufferReader<Object>()
+    {
+        public int read(final Consumer<Object> handler, final int limit)
+        {
+            return 0;
+        }
+
+        public int drainTo(final Object[] batch, final int max)
+        {
+            return 0;
+        }
+
+        public void wakeupSignal(final WakeupSignal wakeupSignal)
+        {
+        }
+    };
     private static final Nukleus NULL_NUKLEUS = () -> 0;
 
-    private final RingBufferReader ringBufferReader;
+    private final Nukleus ringBufferProcess;
     private final MpscRingBufferReader mpscRingBufferReader;
     private final MpscRingBufferReader.ReadHandler ringBufferHandler;
+    private final MpscRingBufferReader.ControlledReadHandler controlledRingBufferHandler;
 
     private final ArrayBufferReader<Object> arrayBufferReader;
-    private final MpscArrayBuffer<Object> mpscArrayBuffer;
+    private final ArrayBufferReader<Object> mpscArrayBuffer;
     private final Consumer<Object> arrayBufferHandler;
+    private final Object[] arrayBufferBatch;
 
     private final Nukleus nioSelectorProcess;
     private final NioSelectorNukleus nioSelectorNukleus;
@@ -58,15 +77,21 @@ public class MessagingNukleus implements Nukleus
             throw new IllegalArgumentException("must specify either RingBuffer, ArrayBuffer, and/or NioSelector for Nukleus");
         }
 
+        this.ringBufferHandler = builder.ringBufferHandler;
+        this.controlledRingBufferHandler = builder.controlledRingBufferHandler;
+        this.ringBufferReadLimit = builder.ringBufferReadLimit;
+
         if (null != builder.ringBuffer)
         {
             this.mpscRingBufferReader = new MpscRingBufferReader(builder.ringBuffer);
-            this.ringBufferReader = mpscRingBufferReader;
+            this.ringBufferProcess = (null != controlledRingBufferHandler) ?
+                () -> mpscRingBufferReader.controlledRead(controlledRingBufferHandler, ringBufferReadLimit) :
+                () -> mpscRingBufferReader.read(ringBufferHandler, ringBufferReadLimit);
         }
         else
         {
             this.mpscRingBufferReader = null;
-            this.ringBufferReader = NULL_RING_BUFFER_READER;
+            this.ringBufferProcess = NULL_NUKLEUS;
         }
 
         if (null != builder.arrayBuffer)
@@ -91,10 +116,9 @@ public class MessagingNukleus implements Nukleus
             this.nioSelectorProcess = NULL_NUKLEUS;
         }
 
-        this.ringBufferHandler = builder.ringBufferHandler;
         this.arrayBufferHandler = builder.arrayBufferHandler;
-        this.ringBufferReadLimit = builder.ringBufferReadLimit;
         this.arrayBufferReadLimit = builder.arrayBufferReadLimit;
+        this.arrayBufferBatch = new Object[Math.min(arrayBufferReadLimit, MAX_ARRAY_BUFFER_BATCH)];
     }
 
     /** {@inheritDoc} */
@@ -105,8 +129,8 @@ public class MessagingNukleus implements Nukleus
         try
         {
             // some of these might be noop lambdas that return 0, but should be no branching
-            weight += ringBufferReader.read(ringBufferHandler, ringBufferReadLimit);
-            weight += arrayBufferReader.read(arrayBufferHandler, arrayBufferReadLimit);
+            weight += ringBufferProcess.process();
+            weight += arrayBufferProcess();
             weight += nioSelectorProcess.process();
         }
         catch (final Exception ex)
@@ -117,6 +141,39 @@ public class MessagingNukleus implements Nukleus
         return weight;
     }
 
+    // drained in batches, so the head of the buffer moves once per batch rather than once per message
+    private int arrayBufferProcess()
+    {
+        final Object[] batch = arrayBufferBatch;
+        int messagesRead = 0;
+
+        while (messagesRead < arrayBufferReadLimit)
+        {
+            final int drained = arrayBufferReader.drainTo(batch, arrayBufferReadLimit - messagesRead);
+
+            try
+            {
+                for (int i = 0; i < drained; i++)
+                {
+                    arrayBufferHandler.accept(batch[i]);
+                }
+            }
+            finally
+            {
+                Arrays.fill(batch, 0, drained, null);
+            }
+
+            messagesRead += drained;
+
+            if (drained < batch.length)
+            {
+                break;
+            }
+        }
+
+        return messagesRead;
+    }
+
     /**
      * Builder interface for nukleus
      */
@@ -124,7 +181,8 @@ public class MessagingNukleus implements Nukleus
     {
         private AtomicBuffer ringBuffer;
         private MpscRingBufferReader.ReadHandler ringBufferHandler;
-        private MpscArrayBuffer<Object> arrayBuffer;
+        private MpscRingBufferReader.ControlledReadHandler controlledRingBufferHandler;
+        private ArrayBufferReader<Object> arrayBuffer;
         private Consumer<Object> arrayBufferHandler;
         private NioSelectorNukleus nioSelectorNukleus;
         private int ringBufferReadLimit;
@@ -141,11 +199,28 @@ public class MessagingNukleus implements Nukleus
 
             ringBuffer = buffer;
             ringBufferHandler = handler;
+            controlledRingBufferHandler = null;
+            ringBufferReadLimit = limit;
+            return this;
+        }
+
+        public Builder controlledMpscRingBuffer(final AtomicBuffer buffer,
+                                                final MpscRingBufferReader.ControlledReadHandler handler,
+                                                final int limit)
+        {
+            if (null == buffer || null == handler || limit < 1)
+            {
+                throw new IllegalArgumentException("MpscRingBuffer must not be null and limit must be positive");
+            }
+
+            ringBuffer = buffer;
+            ringBufferHandler = null;
+            controlledRingBufferHandler = handler;
             ringBufferReadLimit = limit;
             return this;
         }
 
-        public Builder mpscArrayBuffer(final MpscArrayBuffer<Object> buffer,
+        public Builder mpscArrayBuffer(final ArrayBufferReader<Object> buffer,
                                        final Consumer<Object> handler,
                                        final int limit)
         {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.kaazing.nuklei.concurrent.WakeupSignal;
+
+import java.nio.channels.Selector;
+
+/**
+ * Idler for a thread driving a single {@link NioSelectorNukleus} that blocks in {@link Selector#select(long)} once
+ * the thread has been idle for a number of passes.
+ *
+ * Before blocking the idler marks itself parked and lets one more pass run, so work published before a producer
+ * could see the mark is still picked up. Producers raise it as the {@link WakeupSignal} of the buffers the thread
+ * reads, and only call {@link Selector#wakeup()} while it is parked.
+ */
+public class NioSelectorIdler implements Idler, WakeupSignal
+{
+    public static final int DEFAULT_IDLE_PASSES = 100;
+    public static final long DEFAULT_SELECT_TIMEOUT_MS = 100;
+
+    private final Selector selector;
+    private final int idlePassesBeforeBlocking;
+    private final long selectTimeoutMs;
+
+    private int idlePasses;
+    private volatile boolean parked;
+
+    public NioSelectorIdler(final Selector selector)
+    {
+        this(selector, DEFAULT_IDLE_PASSES, DEFAULT_SELECT_TIMEOUT_MS);
+    }
+
+    /**
+     * Construct a selector idler.
+     *
+     * @param selector to block in, the one of the {@link NioSelectorNukleus} on the same thread
+     * @param idlePassesBeforeBlocking number of passes without work before blocking
+     * @param selectTimeoutMs to block for at most, so other nuklei on the thread are still serviced
+     */
+    public NioSelectorIdler(final Selector selector, final int idlePassesBeforeBlocking, final long selectTimeoutMs)
+    {
+        if (selectTimeoutMs < 1)
+        {
+            throw new IllegalArgumentException("select timeout must be positive");
+        }
+
+        this.selector = selector;
+        this.idlePassesBeforeBlocking = idlePassesBeforeBlocking;
+        this.selectTimeoutMs = selectTimeoutMs;
+    }
+
+    /** {@inheritDoc} */
+    public void idle(final int weight)
+    {
+        if (weight > 0)
+        {
+            idlePasses = 0;
+
+            if (parked)
+            {
+                parked = false;
+            }
+            return;
+        }
+
+        if (++idlePasses < idlePassesBeforeBlocking)
+        {
+            return;
+        }
+
+        if (!parked)
+        {
+            parked = true;
+            return;
+        }
+
+        try
+        {
+            // keys are selected again by the selectNow() of the next pass as long as their channels are ready, so
+            // drop them rather than have an optimized selected-key set, which can not tell it holds a key, add twice
+            if (0 < selector.select(selectTimeoutMs))
+            {
+                selector.selectedKeys().clear();
+            }
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+
+        // stay past the idle threshold so a quiet thread goes straight back to blocking
+        parked = false;
+    }
+
+    /** {@inheritDoc} */
+    public void signal()
+    {
+        // order the producer's writes before reading parked, pairs with the volatile store of parked in idle()
+        BitUtil.UNSAFE.fullFence();
+
+        if (parked)
+        {
+            selector.wakeup();
+        }
+    }
+}
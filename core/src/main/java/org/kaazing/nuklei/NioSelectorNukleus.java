@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.function.IntSupplier;
@@ -35,9 +37,37 @@ public class NioSelectorNukleus implements Nukleus
 
     public final Selector selector;
 
+    private final SelectedKeySet selectedKeySet;
+    private final ArrayDeque<DispatchHandler> dispatchHandlerPool;
+
     public NioSelectorNukleus(final Selector selector) throws IOException
+    {
+        this(selector, false);
+    }
+
+    /**
+     * Construct a selector nukleus, optionally replacing the selected-key set of the selector with an array backed
+     * one. Falls back to the selector's own set if the JDK does not allow the replacement.
+     *
+     * @param selector to select on
+     * @param optimizeSelectedKeys whether to replace the selected-key set
+     * @throws IOException
+     */
+    public NioSelectorNukleus(final Selector selector, final boolean optimizeSelectedKeys) throws IOException
     {
         this.selector = selector;
+        this.selectedKeySet = optimizeSelectedKeys ? SelectedKeySet.install(selector) : null;
+        this.dispatchHandlerPool = new ArrayDeque<>();
+    }
+
+    /**
+     * Return whether the selected-key set of the selector has been replaced.
+     *
+     * @return true if selected keys are iterated by index
+     */
+    public boolean isSelectedKeySetOptimized()
+    {
+        return null != selectedKeySet;
     }
 
     /** {@inheritDoc} */
@@ -60,10 +90,13 @@ public class NioSelectorNukleus implements Nukleus
 
     /**
      * Register a {@link SelectableChannel} for interest and use supplied handler when ready.
+     * All ops set in ops share the handler, and all ready ops of a channel are dispatched in the same pass.
+     *
+     * Per-op handlers are held in dispatch state that is recycled once the channel is cancelled.
      *
      * @param channel for interest
      * @param ops interested in
-     * @param handler to call when ready
+     * @param handler to call when any of ops is ready
      * @throws Exception
      */
     public void register(final SelectableChannel channel, final int ops, final IntSupplier handler) throws Exception
@@ -73,14 +106,17 @@ public class NioSelectorNukleus implements Nukleus
 
         if (null == key)
         {
-            dispatchHandler = new DispatchHandler();
-            key = channel.register(selector, ops);
-            key.attach(dispatchHandler);
+            dispatchHandler = acquireDispatchHandler();
+            key = channel.register(selector, ops, dispatchHandler);
         }
-        else
+        else if (key.attachment() instanceof DispatchHandler)
         {
             dispatchHandler = (DispatchHandler)key.attachment();
         }
+        else
+        {
+            throw new IllegalStateException("channel already registered with a SelectionHandler");
+        }
 
         key.interestOps(key.interestOps() | ops);
 
@@ -88,20 +124,52 @@ public class NioSelectorNukleus implements Nukleus
         {
             dispatchHandler.dispatcher(DISPATCH_CONNECT, handler);
         }
-        else if ((ops & SelectionKey.OP_ACCEPT) != 0)
+
+        if ((ops & SelectionKey.OP_ACCEPT) != 0)
         {
             dispatchHandler.dispatcher(DISPATCH_ACCEPT, handler);
         }
-        else if ((ops & SelectionKey.OP_READ) != 0)
+
+        if ((ops & SelectionKey.OP_READ) != 0)
         {
             dispatchHandler.dispatcher(DISPATCH_READ, handler);
         }
-        else if ((ops & SelectionKey.OP_WRITE) != 0)
+
+        if ((ops & SelectionKey.OP_WRITE) != 0)
         {
             dispatchHandler.dispatcher(DISPATCH_WRITE, handler);
         }
     }
 
+    /**
+     * Register a {@link SelectableChannel} for interest and call the typed callbacks of a preallocated handler when
+     * ready. The handler is attached to the selection key directly, so nothing is allocated per registration.
+     * A channel may only have one handler.
+     *
+     * @param channel for interest
+     * @param ops interested in
+     * @param handler to call when ready
+     * @throws Exception
+     */
+    public void register(final SelectableChannel channel, final int ops, final SelectionHandler handler)
+        throws Exception
+    {
+        final SelectionKey key = channel.keyFor(selector);
+
+        if (null == key)
+        {
+            channel.register(selector, ops, handler);
+        }
+        else if (key.attachment() == handler)
+        {
+            key.interestOps(key.interestOps() | ops);
+        }
+        else
+        {
+            throw new IllegalStateException("channel already registered with another handler");
+        }
+    }
+
     /**
      * Cancel interest for a given {@link SelectableChannel}
      *
@@ -119,16 +187,26 @@ public class NioSelectorNukleus implements Nukleus
             if (0 == newOps)
             {
                 key.cancel();
+
+                if (key.attachment() instanceof DispatchHandler)
+                {
+                    releaseDispatchHandler((DispatchHandler)key.attach(null));
+                }
             }
             else
             {
-                key.interestOps(key.interestOps() & ~ops);
+                key.interestOps(newOps);
             }
         }
     }
 
     private int processKeys()
     {
+        if (null != selectedKeySet)
+        {
+            return processSelectedKeySet();
+        }
+
         int handledMessages = 0;
         final Set<SelectionKey> selectedKeys = selector.selectedKeys();
 
@@ -138,26 +216,8 @@ public class NioSelectorNukleus implements Nukleus
             while (iter.hasNext())
             {
                 final SelectionKey key = iter.next();
-                final int readyOps = key.readyOps();
-                final DispatchHandler dispatchHandler = (DispatchHandler)key.attachment();
-
-                if ((readyOps & SelectionKey.OP_CONNECT) != 0)
-                {
-                    handledMessages += dispatchHandler.dispatch(DISPATCH_CONNECT);
-                }
-                else if ((readyOps & SelectionKey.OP_ACCEPT) != 0)
-                {
-                    handledMessages += dispatchHandler.dispatch(DISPATCH_ACCEPT);
-                }
-                else if ((readyOps & SelectionKey.OP_READ) != 0)
-                {
-                    handledMessages += dispatchHandler.dispatch(DISPATCH_READ);
-                }
-                else if ((readyOps & SelectionKey.OP_WRITE) != 0)
-                {
-                    handledMessages += dispatchHandler.dispatch(DISPATCH_WRITE);
-                }
 
+                handledMessages += dispatch(key);
                 iter.remove();
             }
         }
@@ -165,18 +225,110 @@ public class NioSelectorNukleus implements Nukleus
         return handledMessages;
     }
 
-    private static class DispatchHandler
+    private int processSelectedKeySet()
+    {
+        final SelectedKeySet selectedKeys = selectedKeySet;
+        final int size = selectedKeys.size();
+        int handledMessages = 0;
+
+        try
+        {
+            for (int i = 0; i < size; i++)
+            {
+                handledMessages += dispatch(selectedKeys.key(i));
+            }
+        }
+        finally
+        {
+            selectedKeys.reset();
+        }
+
+        return handledMessages;
+    }
+
+    // every ready op is dispatched, a handler may cancel the key so validity is checked between them
+    private int dispatch(final SelectionKey key)
+    {
+        if (!key.isValid())
+        {
+            return 0;
+        }
+
+        final int readyOps = key.readyOps();
+        final SelectionHandler handler = (SelectionHandler)key.attachment();
+        int weight = 0;
+
+        if ((readyOps & SelectionKey.OP_CONNECT) != 0)
+        {
+            weight += handler.onConnectable();
+        }
+
+        if ((readyOps & SelectionKey.OP_ACCEPT) != 0 && key.isValid())
+        {
+            weight += handler.onAcceptable();
+        }
+
+        if ((readyOps & SelectionKey.OP_READ) != 0 && key.isValid())
+        {
+            weight += handler.onReadable();
+        }
+
+        if ((readyOps & SelectionKey.OP_WRITE) != 0 && key.isValid())
+        {
+            weight += handler.onWritable();
+        }
+
+        return weight;
+    }
+
+    private DispatchHandler acquireDispatchHandler()
+    {
+        final DispatchHandler dispatchHandler = dispatchHandlerPool.pollFirst();
+
+        return null != dispatchHandler ? dispatchHandler : new DispatchHandler();
+    }
+
+    private void releaseDispatchHandler(final DispatchHandler dispatchHandler)
+    {
+        dispatchHandler.clear();
+        dispatchHandlerPool.addFirst(dispatchHandler);
+    }
+
+    /*
+     * Adapts per-op IntSupplier handlers to a SelectionHandler
+     */
+    private static class DispatchHandler implements SelectionHandler
     {
-        private IntSupplier[] dispatchers = new IntSupplier[4];
+        private final IntSupplier[] dispatchers = new IntSupplier[4];
 
         public void dispatcher(final int index, final IntSupplier handler)
         {
             dispatchers[index] = handler;
         }
 
-        public int dispatch(final int index)
+        public void clear()
+        {
+            Arrays.fill(dispatchers, null);
+        }
+
+        public int onConnectable()
+        {
+            return dispatchers[DISPATCH_CONNECT].getAsInt();
+        }
+
+        public int onAcceptable()
+        {
+            return dispatchers[DISPATCH_ACCEPT].getAsInt();
+        }
+
+        public int onReadable()
+        {
+            return dispatchers[DISPATCH_READ].getAsInt();
+        }
+
+        public int onWritable()
         {
-            return dispatchers[index].getAsInt();
+            return dispatchers[DISPATCH_WRITE].getAsInt();
         }
     }
 }
@@ -0,0 +1,319 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Group of {@link DedicatedNuklei} threads that places each {@link Nukleus} on the least loaded thread and
+ * periodically moves work off saturated threads.
+ *
+ * Load is the duty cycle of a thread, the fraction of its passes in which some nukleus reported work, sampled
+ * between rebalances. Moves happen at a safe point of the source thread, see {@link DedicatedNuklei#migrate}.
+ */
+public class NukleiGroup implements Nuklei
+{
+    /** duty cycle at or above which a thread is considered saturated */
+    public static final double SATURATION_THRESHOLD = 0.9;
+
+    /** minimum difference in duty cycle between the saturated and the target thread before moving */
+    public static final double REBALANCE_HYSTERESIS = 0.2;
+
+    /** default period between rebalances */
+    public static final long DEFAULT_REBALANCE_PERIOD_MS = 100;
+
+    private final DedicatedNuklei[] nukleiArray;
+    private final long[] lastPasses;
+    private final long[] lastBusyPasses;
+    private final double[] dutyCycles;
+    private final Map<Nukleus, Placement> placementByNukleus;
+    private final Thread balancer;
+
+    private volatile boolean done;
+
+    /**
+     * Create a group with a number of threads that do not idle and the default rebalance period.
+     *
+     * @param name prefix of the thread names
+     * @param threads number of threads
+     */
+    public NukleiGroup(final String name, final int threads)
+    {
+        this(name, threads, NoOpIdler::new, DEFAULT_REBALANCE_PERIOD_MS);
+    }
+
+    /**
+     * Create a group with a number of threads.
+     *
+     * @param name prefix of the thread names
+     * @param threads number of threads
+     * @param idlerSupplier to create an {@link Idler} for each thread
+     * @param rebalancePeriodMs period between rebalances, or 0 to only rebalance when {@link #rebalance()} is called
+     */
+    public NukleiGroup(
+        final String name, final int threads, final Supplier<Idler> idlerSupplier, final long rebalancePeriodMs)
+    {
+        if (threads < 1)
+        {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+
+        nukleiArray = new DedicatedNuklei[threads];
+        lastPasses = new long[threads];
+        lastBusyPasses = new long[threads];
+        dutyCycles = new double[threads];
+        placementByNukleus = new IdentityHashMap<>();
+
+        for (int i = 0; i < threads; i++)
+        {
+            nukleiArray[i] = new DedicatedNuklei(name + "-" + i, idlerSupplier.get());
+        }
+
+        if (rebalancePeriodMs > 0)
+        {
+            final long periodNs = TimeUnit.MILLISECONDS.toNanos(rebalancePeriodMs);
+
+            balancer = new Thread(() ->
+            {
+                while (!done)
+                {
+                    LockSupport.parkNanos(periodNs);
+                    rebalance();
+                }
+            });
+            balancer.setName(name + "-balancer");
+            balancer.setDaemon(true);
+            balancer.start();
+        }
+        else
+        {
+            balancer = null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    public synchronized void spinUp(final Nukleus nukleus)
+    {
+        final DedicatedNuklei target = nukleiArray[leastLoaded(-1)];
+
+        placementByNukleus.put(nukleus, new Placement(target));
+        target.spinUp(nukleus);
+    }
+
+    /**
+     * Remove a {@link Nukleus} from the group.
+     *
+     * @param nukleus to remove
+     */
+    public synchronized void spinDown(final Nukleus nukleus)
+    {
+        final Placement placement = placementByNukleus.remove(nukleus);
+
+        if (null != placement)
+        {
+            placement.removed = true;
+
+            // a migrating nukleus is held by neither thread, it is dropped when it lands instead
+            if (!placement.migrating)
+            {
+                placement.owner.spinDown(nukleus);
+            }
+        }
+    }
+
+    /**
+     * Return the duty cycle of a thread measured at the last rebalance.
+     *
+     * @param index of the thread
+     * @return duty cycle between 0.0 and 1.0
+     */
+    public synchronized double dutyCycle(final int index)
+    {
+        return dutyCycles[index];
+    }
+
+    /**
+     * Sample the load of each thread and {@link Nukleus} and, if a thread is saturated and another is sufficiently
+     * less loaded, move the busiest nukleus other than the heaviest one off the saturated thread. At most one move
+     * is made per call so that its effect can be measured before the next.
+     *
+     * @return true if a nukleus was moved
+     */
+    public synchronized boolean rebalance()
+    {
+        int busiest = 0;
+
+        for (int i = 0; i < nukleiArray.length; i++)
+        {
+            final DedicatedNuklei nuklei = nukleiArray[i];
+            final long passes = nuklei.passes();
+            final long busyPasses = nuklei.busyPasses();
+            final long deltaPasses = passes - lastPasses[i];
+
+            if (deltaPasses > 0)
+            {
+                dutyCycles[i] = (double)(busyPasses - lastBusyPasses[i]) / deltaPasses;
+            }
+
+            lastPasses[i] = passes;
+            lastBusyPasses[i] = busyPasses;
+
+            if (dutyCycles[i] > dutyCycles[busiest])
+            {
+                busiest = i;
+            }
+        }
+
+        placementByNukleus.forEach((nukleus, placement) -> placement.update(nukleus));
+
+        final int target = leastLoaded(busiest);
+
+        if (-1 == target ||
+            dutyCycles[busiest] < SATURATION_THRESHOLD ||
+            dutyCycles[busiest] - dutyCycles[target] < REBALANCE_HYSTERESIS)
+        {
+            return false;
+        }
+
+        final DedicatedNuklei source = nukleiArray[busiest];
+        final List<Map.Entry<Nukleus, Placement>> candidates = new ArrayList<>();
+
+        placementByNukleus.entrySet().forEach((entry) ->
+        {
+            if (entry.getValue().owner == source && !entry.getValue().migrating)
+            {
+                candidates.add(entry);
+            }
+        });
+
+        if (candidates.size() < 2)
+        {
+            return false;
+        }
+
+        // the heaviest stays where it is, moving it would only move the saturation
+        candidates.sort((a, b) -> Long.compare(b.getValue().load, a.getValue().load));
+
+        final Nukleus mover = candidates.get(1).getKey();
+        final Placement placement = candidates.get(1).getValue();
+        final DedicatedNuklei destination = nukleiArray[target];
+
+        try
+        {
+            source.migrate(mover, (nukleus) -> land(nukleus, placement, destination));
+        }
+        catch (final IllegalStateException ex)
+        {
+            return false;  // command queue of the source is full, try again at the next rebalance
+        }
+
+        placement.moveTo(destination);
+
+        return true;
+    }
+
+    /**
+     * Stop the balancer and all threads and wait for them to terminate.
+     */
+    public void stop()
+    {
+        done = true;
+
+        if (null != balancer)
+        {
+            LockSupport.unpark(balancer);
+        }
+
+        for (final DedicatedNuklei nuklei : nukleiArray)
+        {
+            nuklei.stop();
+        }
+    }
+
+    // called by the source thread once it has removed the nukleus
+    private synchronized void land(final Nukleus nukleus, final Placement placement, final DedicatedNuklei destination)
+    {
+        placement.migrating = false;
+
+        if (!placement.removed)
+        {
+            destination.spinUp(nukleus);
+        }
+    }
+
+    private int leastLoaded(final int exclude)
+    {
+        int index = -1;
+
+        for (int i = 0; i < nukleiArray.length; i++)
+        {
+            if (i == exclude)
+            {
+                continue;
+            }
+
+            if (-1 == index ||
+                dutyCycles[i] < dutyCycles[index] ||
+                (dutyCycles[i] == dutyCycles[index] &&
+                    nukleiArray[i].nukleusCount() < nukleiArray[index].nukleusCount()))
+            {
+                index = i;
+            }
+        }
+
+        return index;
+    }
+
+    /*
+     * Where a nukleus runs and how much work it did between the last two rebalances
+     */
+    private static class Placement
+    {
+        private DedicatedNuklei owner;
+        private long lastBusyCalls;
+        private long load;
+        private boolean migrating;
+        private boolean removed;
+
+        Placement(final DedicatedNuklei owner)
+        {
+            this.owner = owner;
+        }
+
+        void update(final Nukleus nukleus)
+        {
+            // -1 until a migrated nukleus has landed on its new owner
+            final long busyCalls = Math.max(owner.busyCalls(nukleus), 0);
+
+            load = Math.max(busyCalls - lastBusyCalls, 0);
+            lastBusyCalls = busyCalls;
+        }
+
+        void moveTo(final DedicatedNuklei owner)
+        {
+            this.owner = owner;
+            lastBusyCalls = 0;
+            load = 0;
+            migrating = true;
+        }
+    }
+}
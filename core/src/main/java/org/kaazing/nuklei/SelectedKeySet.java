@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import java.lang.reflect.Field;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Array backed replacement for the selected-key set of a {@link Selector}, iterated by index and reset in place
+ * instead of through an {@link Iterator} removing hash set entries.
+ *
+ * Only add and clear are supported as that is all the selector and its users need. contains always returns false, so
+ * a key selected again before the set is reset appears twice.
+ */
+class SelectedKeySet extends AbstractSet<SelectionKey>
+{
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private SelectionKey[] keys = new SelectionKey[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Install a new set as the selected-key set of a selector.
+     *
+     * @param selector to install into
+     * @return installed set or null if the JDK does not allow it
+     */
+    static SelectedKeySet install(final Selector selector)
+    {
+        try
+        {
+            final Class<?> selectorImplClass =
+                Class.forName("sun.nio.ch.SelectorImpl", false, ClassLoader.getSystemClassLoader());
+
+            if (!selectorImplClass.isInstance(selector))
+            {
+                return null;
+            }
+
+            final Field selectedKeysField = selectorImplClass.getDeclaredField("selectedKeys");
+            final Field publicSelectedKeysField = selectorImplClass.getDeclaredField("publicSelectedKeys");
+            final SelectedKeySet selectedKeySet = new SelectedKeySet();
+
+            selectedKeysField.setAccessible(true);
+            publicSelectedKeysField.setAccessible(true);
+            selectedKeysField.set(selector, selectedKeySet);
+            publicSelectedKeysField.set(selector, selectedKeySet);
+
+            return selectedKeySet;
+        }
+        catch (final Exception ex)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Return the key at an index.
+     *
+     * @param index of the key, less than {@link #size()}
+     * @return key
+     */
+    SelectionKey key(final int index)
+    {
+        return keys[index];
+    }
+
+    /**
+     * Remove all keys, releasing references to them.
+     */
+    void reset()
+    {
+        Arrays.fill(keys, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Same as {@link #reset()}, as keys can not be removed one at a time.
+     */
+    public void clear()
+    {
+        reset();
+    }
+
+    /** {@inheritDoc} */
+    public boolean add(final SelectionKey key)
+    {
+        if (null == key)
+        {
+            return false;
+        }
+
+        if (size == keys.length)
+        {
+            keys = Arrays.copyOf(keys, size << 1);
+        }
+
+        keys[size++] = key;
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    public boolean remove(final Object key)
+    {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public boolean contains(final Object key)
+    {
+        return false;
+    }
+
+    /** {@inheritDoc} */
+    public int size()
+    {
+        return size;
+    }
+
+    /** {@inheritDoc} */
+    public Iterator<SelectionKey> iterator()
+    {
+        return new Iterator<SelectionKey>()
+        {
+            private int index;
+
+            public boolean hasNext()
+            {
+                return index < size;
+            }
+
+            public SelectionKey next()
+            {
+                if (index >= size)
+                {
+                    throw new NoSuchElementException();
+                }
+
+                return keys[index++];
+            }
+        };
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+/**
+ * Typed readiness callbacks for a channel registered with a {@link NioSelectorNukleus}.
+ *
+ * A single preallocated handler is attached to the selection key of its channel, so registering and dispatching
+ * allocate nothing. Callbacks return the weight of the work done, as {@link Nukleus#process()} does.
+ */
+public interface SelectionHandler
+{
+    /**
+     * Called when the channel is ready to accept a connection.
+     *
+     * @return weight of work done
+     */
+    default int onAcceptable()
+    {
+        return 0;
+    }
+
+    /**
+     * Called when the channel is ready to finish connecting.
+     *
+     * @return weight of work done
+     */
+    default int onConnectable()
+    {
+        return 0;
+    }
+
+    /**
+     * Called when the channel is ready for reading.
+     *
+     * @return weight of work done
+     */
+    default int onReadable()
+    {
+        return 0;
+    }
+
+    /**
+     * Called when the channel is ready for writing.
+     *
+     * @return weight of work done
+     */
+    default int onWritable()
+    {
+        return 0;
+    }
+}
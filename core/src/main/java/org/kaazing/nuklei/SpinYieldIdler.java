@@ -0,0 +1,66 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+/**
+ * Idler that spins for a number of idle iterations and then yields the thread on every idle iteration after that.
+ */
+public class SpinYieldIdler implements Idler
+{
+    private final int maxSpins;
+
+    private int spins;
+
+    /**
+     * Construct an idler that spins then yields.
+     *
+     * @param maxSpins number of idle iterations to spin before yielding
+     */
+    public SpinYieldIdler(final int maxSpins)
+    {
+        this.maxSpins = maxSpins;
+        this.spins = 0;
+    }
+
+    /** {@inheritDoc} */
+    public void idle(final int weight)
+    {
+        if (weight > 0)
+        {
+            spins = 0;
+            return;
+        }
+
+        if (spins < maxSpins)
+        {
+            spins++;
+        }
+        else
+        {
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Return the number of idle iterations spun since work was last done.
+     *
+     * @return spins, at most the maximum after which the idler yields
+     */
+    public int spins()
+    {
+        return spins;
+    }
+}
@@ -31,4 +31,21 @@ public interface ArrayBufferReader<E>
      * @return number of messages read
      */
     public int read(final Consumer<E> handler, final int limit);
+
+    /**
+     * Set the {@link WakeupSignal} writers raise after each successful write, to wake the reader when idle.
+     *
+     * @param wakeupSignal to raise, or {@link WakeupSignal#NULL_SIGNAL} for none
+     */
+    public void wakeupSignal(final WakeupSignal wakeupSignal);
+
+    /**
+     * Move pending messages from the buffer into a batch, up to a limit of number of messages, to be handled all
+     * together by the caller. Does not block.
+     *
+     * @param batch to fill from its start
+     * @param max number of messages to move, bounded by the length of the batch
+     * @return number of messages moved into the batch
+     */
+    public int drainTo(final E[] batch, final int max);
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+/**
+ * Interface for writers
+ */
+public interface ArrayBufferWriter<E> extends IdGenerator
+{
+    /**
+     * Write a given message to the buffer.
+     *
+     * @param message to write into the buffer
+     * @return whether write was successful or not. If not successful, should be retried.
+     */
+    public boolean write(final E message);
+}
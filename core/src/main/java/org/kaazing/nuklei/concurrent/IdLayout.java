@@ -0,0 +1,35 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+/**
+ * Layout of IDs handed out by a {@link StripedIdGenerator}, composed from sequence numbers that are unique for the
+ * counter they were taken from.
+ */
+@FunctionalInterface
+public interface IdLayout
+{
+    /** layout where the ID is the sequence number itself, so the first ID is 0 */
+    IdLayout SEQUENCE = (sequence) -> sequence;
+
+    /**
+     * Compose an ID from a sequence number.
+     *
+     * @param sequence unique for the counter, starting at 0
+     * @return id
+     */
+    long id(final long sequence);
+}
@@ -18,67 +18,15 @@ package org.kaazing.nuklei.concurrent;
 import org.kaazing.nuklei.BitUtil;
 import sun.misc.Unsafe;
 
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Consumer;
 
-/*
- * Padding is to 64-bit cache lines, but might need to be 128-bit (uncomment additional padding)
- */
-class Padding1
-{
-    protected long p1, p2, p3, p4, p5, p6, p7;
-    //protected long p101, p102, p103, p104, p105, p106, p107;
-}
-
-class Tail extends Padding1
-{
-    protected volatile long tailCounter;
-}
-
-class Padding2 extends Tail
-{
-    protected long p8, p9, p10, p11, p12, p13, p14;
-    //protected long p108, p109, p110, p111, p112, p113, p114;
-}
-
-class Head extends Padding2
-{
-    protected volatile long headCounter;
-}
-
-class Padding3 extends Head
-{
-    protected long p15, p16, p17, p18, p19, p20, p21;
-    //protected long p115, p116, p117, p118, p119, p120, p121;
-}
-
-class IdCounter extends Padding3
-{
-    protected volatile long idCounter;
-}
-
-class Padding4 extends IdCounter
-{
-    protected long p22, p23, p24, p25, p26, p27, p28;
-    //protected long p122, p123, p124, p125, p126, p127, p128;
-}
-
-class HeadCache extends Padding4
-{
-    protected volatile long headCacheCounter;
-}
-
-class Padding5 extends HeadCache
-{
-    protected long p29, p30, p31, p32, p33, p34, p35;
-    //protected long p129, p130, p131, p132, p133, p134, p135;
-}
-
 /**
  * Multi-Producer, Single Consumer array buffer providing message passing semantics of types.
  *
  * Approach inspired by JCTools (https://github.com/JCTools/JCTools) MpscArrayQueue
  */
-public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
+public class MpscArrayBuffer<E> extends Padding6 implements ArrayBufferReader<E>, ArrayBufferWriter<E>
 {
     private static final Unsafe UNSAFE = BitUtil.UNSAFE;
     private static final long TAIL_COUNTER_OFFSET;
@@ -94,6 +42,8 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
     private final int mask;
     private final int capacity;
 
+    private volatile WakeupSignal wakeupSignal = WakeupSignal.NULL_SIGNAL;
+
     static
     {
         try
@@ -137,12 +87,13 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
         return capacity;
     }
 
-    /**
-     * Write a given message to the buffer.
-     *
-     * @param message to write into the buffer
-     * @return whether write was successful or not. If not successful, should be retried.
-     */
+    /** {@inheritDoc} */
+    public void wakeupSignal(final WakeupSignal wakeupSignal)
+    {
+        this.wakeupSignal = wakeupSignal;
+    }
+
+    /** {@inheritDoc} */
     public boolean write(final E message)
     {
         checkMessage(message);
@@ -156,6 +107,15 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
 
         final long offset = calculateMessageOffset(messageIndex);
         putMessageOrdered(offset, message);
+        wakeupSignal.signal();
+
+        // the claim moved the tail before this read, so a reader parking concurrently either sees it or is seen
+        final Thread reader = parkedReader;
+
+        if (null != reader)
+        {
+            LockSupport.unpark(reader);
+        }
 
         return true;
     }
@@ -183,7 +143,7 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
                 }
 
                 ++messagesRead;
-                putMessageOrdered(buffer, offset, null);
+                putMessage(buffer, offset, null);  // published along with the head
                 handler.accept(message);
                 ++currentHead;
             }
@@ -197,10 +157,70 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
     }
 
     /**
-     * Generate and return an ID that is unique between participants.
+     * {@inheritDoc}
+     *
+     * Finds the run of written messages first, then clears their slots in one pass and moves the head once for
+     * all of them.
+     */
+    public int drainTo(final E[] batch, final int max)
+    {
+        final long head = headVolatile();
+        final long limit = Math.min(tailVolatile(), head + Math.min(max, batch.length));
+        final E[] buffer = messages;
+        long currentHead = head;
+
+        while (currentHead < limit)
+        {
+            final E message = objectVolatile(buffer, calculateMessageOffset((int)currentHead & mask));
+
+            // tail could have been visible before object is, so treat it as the end
+            if (null == message)
+            {
+                break;
+            }
+
+            batch[(int)(currentHead - head)] = message;
+            ++currentHead;
+        }
+
+        final int messagesRead = (int)(currentHead - head);
+
+        if (messagesRead > 0)
+        {
+            for (long position = head; position < currentHead; position++)
+            {
+                putMessage(buffer, calculateMessageOffset((int)position & mask), null);
+            }
+
+            putHeadOrdered(currentHead);
+        }
+
+        return messagesRead;
+    }
+
+    /**
+     * Park the reader thread until a message is written or the timeout passes, unless messages are pending. Must only
+     * be called by the reader.
      *
-     * @return id
+     * The reader advertises itself in a padded field that writers read after claiming a slot, so writers to a reader
+     * that is not parked only pay for reading a cache line that does not change.
+     *
+     * @param timeoutNs to park for at most
      */
+    public void park(final long timeoutNs)
+    {
+        parkedReader = Thread.currentThread();
+
+        // claimed but not yet written counts as pending, the writer may have read the field before it was set
+        if (tailVolatile() == headVolatile())
+        {
+            LockSupport.parkNanos(this, timeoutNs);
+        }
+
+        parkedReader = null;
+    }
+
+    /** {@inheritDoc} */
     public long nextId()
     {
         return UNSAFE.getAndAddLong(this, ID_COUNTER_OFFSET, 1);
@@ -264,9 +284,10 @@ public class MpscArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>
         UNSAFE.putOrderedObject(messages, offset, message);
     }
 
-    private void putMessageOrdered(final E[] buffer, final long offset, final E message)
+    // only for clearing slots, which writers see cleared once they see the head that follows
+    private void putMessage(final E[] buffer, final long offset, final E message)
     {
-        UNSAFE.putOrderedObject(buffer, offset, message);
+        UNSAFE.putObject(buffer, offset, message);
     }
 
     private long calculateMessageOffset(final int index)
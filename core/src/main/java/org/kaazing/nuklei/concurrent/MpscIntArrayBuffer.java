@@ -0,0 +1,311 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.kaazing.nuklei.BitUtil;
+import sun.misc.Unsafe;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Multi-Producer, Single Consumer array buffer of int values, such as small encoded commands, that allocates nothing
+ * per message.
+ *
+ * Same layout as {@link MpscArrayBuffer}, with an empty value taking the place of null to mark slots claimed but not
+ * yet written. The empty value can not be written.
+ */
+public class MpscIntArrayBuffer extends Padding5
+{
+    /* empty value unless another is given */
+    public static final int DEFAULT_EMPTY_VALUE = Integer.MIN_VALUE;
+
+    private static final Unsafe UNSAFE = BitUtil.UNSAFE;
+    private static final long TAIL_COUNTER_OFFSET;
+    private static final long HEAD_COUNTER_OFFSET;
+    private static final long HEAD_CACHE_COUNTER_OFFSET;
+    private static final int ARRAY_BASE;
+    private static final int MESSAGE_SHIFT = 2;
+
+    private static final int INSUFFICIENT_CAPACITY = -1;
+
+    private final int[] messages;
+    private final int mask;
+    private final int capacity;
+    private final int emptyValue;
+
+    private volatile WakeupSignal wakeupSignal = WakeupSignal.NULL_SIGNAL;
+
+    static
+    {
+        try
+        {
+            TAIL_COUNTER_OFFSET = UNSAFE.objectFieldOffset(Tail.class.getDeclaredField("tailCounter"));
+            HEAD_COUNTER_OFFSET = UNSAFE.objectFieldOffset(Head.class.getDeclaredField("headCounter"));
+            HEAD_CACHE_COUNTER_OFFSET = UNSAFE.objectFieldOffset(HeadCache.class.getDeclaredField("headCacheCounter"));
+            ARRAY_BASE = UNSAFE.arrayBaseOffset(int[].class);
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Initialize buffer with the given capacity in messages, with {@link #DEFAULT_EMPTY_VALUE} as the empty value.
+     *
+     * @param capacity of the buffer in messages
+     */
+    public MpscIntArrayBuffer(final int capacity)
+    {
+        this(capacity, DEFAULT_EMPTY_VALUE);
+    }
+
+    /**
+     * Initialize buffer with the given capacity in messages.
+     *
+     * @param capacity of the buffer in messages
+     * @param emptyValue that marks empty slots and can not be written
+     */
+    public MpscIntArrayBuffer(final int capacity, final int emptyValue)
+    {
+        checkCapacity(capacity);
+
+        this.messages = new int[capacity];
+        this.mask = capacity - 1;
+        this.capacity = capacity;
+        this.emptyValue = emptyValue;
+
+        if (0 != emptyValue)
+        {
+            Arrays.fill(messages, emptyValue);
+        }
+    }
+
+    /**
+     * Return capacity of the buffer in messages.
+     *
+     * @return capacity of buffer
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Return the value that marks empty slots and can not be written.
+     *
+     * @return empty value
+     */
+    public int emptyValue()
+    {
+        return emptyValue;
+    }
+
+    /**
+     * Set the {@link WakeupSignal} raised after each successful write.
+     *
+     * @param wakeupSignal to raise, or {@link WakeupSignal#NULL_SIGNAL} for none
+     */
+    public void wakeupSignal(final WakeupSignal wakeupSignal)
+    {
+        this.wakeupSignal = wakeupSignal;
+    }
+
+    /**
+     * Write a given message to the buffer.
+     *
+     * @param message to write into the buffer
+     * @return whether write was successful or not. If not successful, should be retried.
+     */
+    public boolean write(final int message)
+    {
+        checkMessage(message);
+
+        final int messageIndex = claim();  // claim slot
+
+        if (INSUFFICIENT_CAPACITY == messageIndex)
+        {
+            return false;
+        }
+
+        UNSAFE.putOrderedInt(messages, calculateMessageOffset(messageIndex), message);
+        wakeupSignal.signal();
+
+        return true;
+    }
+
+    /**
+     * Read pending messages from the buffer up to a limit of number of messages. Does not block.
+     *
+     * @param handler to call for all read messages
+     * @param limit to impose on the number of read messages
+     * @return number of messages read
+     */
+    public int read(final IntConsumer handler, final int limit)
+    {
+        final long tail = tailVolatile();
+        final long head = headVolatile();
+        final int[] buffer = messages;
+        long currentHead = head;
+        int messagesRead = 0;
+
+        try
+        {
+            while ((currentHead < tail) && (messagesRead < limit))
+            {
+                final long offset = calculateMessageOffset((int)currentHead & mask);
+                final int message = UNSAFE.getIntVolatile(buffer, offset);
+
+                // tail could have been visible before message is, so treat it as the end
+                if (emptyValue == message)
+                {
+                    break;
+                }
+
+                ++messagesRead;
+                UNSAFE.putInt(buffer, offset, emptyValue);  // published along with the head
+                handler.accept(message);
+                ++currentHead;
+            }
+        }
+        finally
+        {
+            putHeadOrdered(currentHead);
+        }
+
+        return messagesRead;
+    }
+
+    /**
+     * Move pending messages from the buffer into a batch, up to a limit of number of messages. Does not block.
+     *
+     * @param batch to fill from its start
+     * @param max number of messages to move, bounded by the length of the batch
+     * @return number of messages moved into the batch
+     */
+    public int drainTo(final int[] batch, final int max)
+    {
+        final long head = headVolatile();
+        final long limit = Math.min(tailVolatile(), head + Math.min(max, batch.length));
+        final int[] buffer = messages;
+        long currentHead = head;
+
+        while (currentHead < limit)
+        {
+            final int message = UNSAFE.getIntVolatile(buffer, calculateMessageOffset((int)currentHead & mask));
+
+            // tail could have been visible before message is, so treat it as the end
+            if (emptyValue == message)
+            {
+                break;
+            }
+
+            batch[(int)(currentHead - head)] = message;
+            ++currentHead;
+        }
+
+        final int messagesRead = (int)(currentHead - head);
+
+        if (messagesRead > 0)
+        {
+            for (long position = head; position < currentHead; position++)
+            {
+                UNSAFE.putInt(buffer, calculateMessageOffset((int)position & mask), emptyValue);
+            }
+
+            putHeadOrdered(currentHead);
+        }
+
+        return messagesRead;
+    }
+
+    private int claim()
+    {
+        long head = headCacheVolatile();
+        long tail;
+        do
+        {
+            tail = tailVolatile();
+
+            final long wrapPoint = tail - capacity;
+
+            if (head <= wrapPoint)
+            {
+                final long currentHead = headVolatile();
+
+                if (currentHead <= wrapPoint)
+                {
+                    return INSUFFICIENT_CAPACITY;
+                }
+
+                putHeadCacheOrdered(currentHead);
+                head = currentHead;
+            }
+        }
+        while (!UNSAFE.compareAndSwapLong(this, TAIL_COUNTER_OFFSET, tail, tail + 1));
+
+        return ((int)tail & mask);
+    }
+
+    private long headVolatile()
+    {
+        return headCounter;
+    }
+
+    private long headCacheVolatile()
+    {
+        return headCacheCounter;
+    }
+
+    private long tailVolatile()
+    {
+        return tailCounter;
+    }
+
+    private void putHeadCacheOrdered(final long value)
+    {
+        UNSAFE.putOrderedLong(this, HEAD_CACHE_COUNTER_OFFSET, value);
+    }
+
+    private void putHeadOrdered(final long value)
+    {
+        UNSAFE.putOrderedLong(this, HEAD_COUNTER_OFFSET, value);
+    }
+
+    private static long calculateMessageOffset(final int index)
+    {
+        return ARRAY_BASE + ((long)index << MESSAGE_SHIFT);
+    }
+
+    private static void checkCapacity(final int capacity)
+    {
+        if (capacity < 2 || Integer.bitCount(capacity) > 1)
+        {
+            final String msg = String.format("buffer capacity is %d, but must be power of 2", capacity);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    private void checkMessage(final int message)
+    {
+        if (emptyValue == message)
+        {
+            throw new IllegalArgumentException("message must not be the empty value " + emptyValue);
+        }
+    }
+}
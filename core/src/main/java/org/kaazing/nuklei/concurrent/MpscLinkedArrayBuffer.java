@@ -0,0 +1,330 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.kaazing.nuklei.BitUtil;
+import sun.misc.Unsafe;
+
+import java.util.function.Consumer;
+
+/**
+ * Multi-Producer, Single Consumer array buffer that never refuses a write, for control traffic that must not be lost.
+ *
+ * Messages go into fixed size array chunks linked one after the other. Writers claim positions as in
+ * {@link MpscArrayBuffer} and only add a chunk when the current one is full, under a lock held in the low bit of the
+ * tail. The chunk the reader leaves behind is kept as a spare for the next one needed, so a buffer that keeps up
+ * with its writers stops allocating after its second chunk.
+ *
+ * Approach inspired by JCTools (https://github.com/JCTools/JCTools) MpscUnboundedArrayQueue
+ */
+public class MpscLinkedArrayBuffer<E> extends Padding5 implements ArrayBufferReader<E>, ArrayBufferWriter<E>
+{
+    private static final Unsafe UNSAFE = BitUtil.UNSAFE;
+    private static final long TAIL_COUNTER_OFFSET;
+    private static final long HEAD_COUNTER_OFFSET;
+    private static final long ID_COUNTER_OFFSET;
+    private static final long SPARE_CHUNK_OFFSET;
+    private static final int ARRAY_BASE;
+    private static final int MESSAGE_SHIFT;
+
+    /* tail counts positions in steps of 2, an odd tail means a writer is adding a chunk */
+    private static final int RESIZING = 1;
+    private static final int POSITION_INCREMENT = 2;
+
+    private final int chunkCapacity;
+    private final int mask;
+
+    private volatile Chunk<E> producerChunk;
+    private volatile Chunk<E> spareChunk;
+    private Chunk<E> consumerChunk;
+
+    private volatile WakeupSignal wakeupSignal = WakeupSignal.NULL_SIGNAL;
+
+    static
+    {
+        try
+        {
+            TAIL_COUNTER_OFFSET = UNSAFE.objectFieldOffset(Tail.class.getDeclaredField("tailCounter"));
+            HEAD_COUNTER_OFFSET = UNSAFE.objectFieldOffset(Head.class.getDeclaredField("headCounter"));
+            ID_COUNTER_OFFSET = UNSAFE.objectFieldOffset(IdCounter.class.getDeclaredField("idCounter"));
+            SPARE_CHUNK_OFFSET =
+                UNSAFE.objectFieldOffset(MpscLinkedArrayBuffer.class.getDeclaredField("spareChunk"));
+            ARRAY_BASE = UNSAFE.arrayBaseOffset(Object[].class);
+            MESSAGE_SHIFT = 31 - Integer.numberOfLeadingZeros(UNSAFE.arrayIndexScale(Object[].class));
+        }
+        catch (final Exception ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Initialize buffer with the given chunk capacity in messages.
+     *
+     * @param chunkCapacity of each chunk in messages
+     */
+    public MpscLinkedArrayBuffer(final int chunkCapacity)
+    {
+        if (chunkCapacity < 2 || Integer.bitCount(chunkCapacity) > 1)
+        {
+            final String msg = String.format("chunk capacity is %d, but must be power of 2", chunkCapacity);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final Chunk<E> chunk = new Chunk<>(chunkCapacity);
+
+        this.chunkCapacity = chunkCapacity;
+        this.mask = chunkCapacity - 1;
+        this.producerChunk = chunk;
+        this.consumerChunk = chunk;
+    }
+
+    /**
+     * Return capacity of each chunk in messages.
+     *
+     * @return capacity of each chunk
+     */
+    public int chunkCapacity()
+    {
+        return chunkCapacity;
+    }
+
+    /** {@inheritDoc} */
+    public void wakeupSignal(final WakeupSignal wakeupSignal)
+    {
+        this.wakeupSignal = wakeupSignal;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Always successful, adding a chunk when the buffer is full.
+     */
+    public boolean write(final E message)
+    {
+        if (null == message)
+        {
+            throw new IllegalArgumentException("message must not be null");
+        }
+
+        while (true)
+        {
+            final long tail = tailVolatile();
+
+            if (RESIZING == (tail & RESIZING))
+            {
+                continue;  // another writer is adding a chunk, which takes the next position
+            }
+
+            // only written to if the tail has not moved since, and the tail moves on adding a chunk
+            final Chunk<E> chunk = producerChunk;
+            final long position = tail / POSITION_INCREMENT;
+
+            if (position < chunk.base + chunkCapacity)
+            {
+                if (UNSAFE.compareAndSwapLong(this, TAIL_COUNTER_OFFSET, tail, tail + POSITION_INCREMENT))
+                {
+                    UNSAFE.putOrderedObject(chunk.messages, calculateMessageOffset(position), message);
+                    break;
+                }
+            }
+            else if (UNSAFE.compareAndSwapLong(this, TAIL_COUNTER_OFFSET, tail, tail + RESIZING))
+            {
+                final Chunk<E> next = nextChunk(position);
+
+                UNSAFE.putOrderedObject(next.messages, calculateMessageOffset(position), message);
+                chunk.next = next;
+                producerChunk = next;
+                UNSAFE.putOrderedLong(this, TAIL_COUNTER_OFFSET, tail + POSITION_INCREMENT);
+                break;
+            }
+        }
+
+        wakeupSignal.signal();
+
+        return true;
+    }
+
+    /** {@inheritDoc} */
+    public int read(final Consumer<E> handler, final int limit)
+    {
+        Chunk<E> chunk = consumerChunk;
+        long position = headCounter;
+        int messagesRead = 0;
+
+        try
+        {
+            while (messagesRead < limit)
+            {
+                if (position == chunk.base + chunkCapacity)
+                {
+                    final Chunk<E> next = chunk.next;
+
+                    if (null == next)
+                    {
+                        break;
+                    }
+
+                    recycle(chunk);
+                    chunk = next;
+                    consumerChunk = next;
+                }
+
+                final long offset = calculateMessageOffset(position);
+                @SuppressWarnings("unchecked")
+                final E message = (E)UNSAFE.getObjectVolatile(chunk.messages, offset);
+
+                // claimed positions are written after the tail moves, so treat an empty slot as the end
+                if (null == message)
+                {
+                    break;
+                }
+
+                ++messagesRead;
+                UNSAFE.putObject(chunk.messages, offset, null);  // chunk is only reused once left by the reader
+                handler.accept(message);
+                ++position;
+            }
+        }
+        finally
+        {
+            UNSAFE.putOrderedLong(this, HEAD_COUNTER_OFFSET, position);
+        }
+
+        return messagesRead;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Finds the run of written messages first, crossing into later chunks, then clears their slots in one pass and
+     * moves the head once for all of them.
+     */
+    public int drainTo(final E[] batch, final int max)
+    {
+        final int limit = Math.min(max, batch.length);
+        final long head = headCounter;
+        Chunk<E> chunk = consumerChunk;
+        long position = head;
+        int messagesRead = 0;
+
+        while (messagesRead < limit)
+        {
+            if (position == chunk.base + chunkCapacity)
+            {
+                final Chunk<E> next = chunk.next;
+
+                if (null == next)
+                {
+                    break;
+                }
+
+                chunk = next;
+            }
+
+            @SuppressWarnings("unchecked")
+            final E message = (E)UNSAFE.getObjectVolatile(chunk.messages, calculateMessageOffset(position));
+
+            // claimed positions are written after the tail moves, so treat an empty slot as the end
+            if (null == message)
+            {
+                break;
+            }
+
+            batch[messagesRead++] = message;
+            ++position;
+        }
+
+        if (messagesRead > 0)
+        {
+            Chunk<E> current = consumerChunk;
+
+            for (long clear = head; clear < position; clear++)
+            {
+                if (clear == current.base + chunkCapacity)
+                {
+                    final Chunk<E> next = current.next;
+
+                    recycle(current);
+                    current = next;
+                }
+
+                UNSAFE.putObject(current.messages, calculateMessageOffset(clear), null);
+            }
+
+            consumerChunk = current;
+            UNSAFE.putOrderedLong(this, HEAD_COUNTER_OFFSET, position);
+        }
+
+        return messagesRead;
+    }
+
+    /** {@inheritDoc} */
+    public long nextId()
+    {
+        return UNSAFE.getAndAddLong(this, ID_COUNTER_OFFSET, 1);
+    }
+
+    // under the lock in the tail, so the spare chunk is taken by one writer at a time
+    @SuppressWarnings("unchecked")
+    private Chunk<E> nextChunk(final long base)
+    {
+        Chunk<E> next = (Chunk<E>)UNSAFE.getAndSetObject(this, SPARE_CHUNK_OFFSET, null);
+
+        if (null == next)
+        {
+            next = new Chunk<>(chunkCapacity);
+        }
+
+        next.base = base;
+
+        return next;
+    }
+
+    // every position of the chunk has been written and read, so no writer is left to touch it
+    private void recycle(final Chunk<E> chunk)
+    {
+        if (null == spareChunk)
+        {
+            chunk.next = null;
+            UNSAFE.putOrderedObject(this, SPARE_CHUNK_OFFSET, chunk);
+        }
+    }
+
+    private long tailVolatile()
+    {
+        return tailCounter;
+    }
+
+    private long calculateMessageOffset(final long position)
+    {
+        return ARRAY_BASE + ((position & mask) << MESSAGE_SHIFT);
+    }
+
+    private static final class Chunk<E>
+    {
+        final E[] messages;
+        long base;
+        volatile Chunk<E> next;
+
+        @SuppressWarnings("unchecked")
+        Chunk(final int capacity)
+        {
+            this.messages = (E[])new Object[capacity];
+        }
+    }
+}
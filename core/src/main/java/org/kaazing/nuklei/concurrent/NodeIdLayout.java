@@ -0,0 +1,65 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+/**
+ * Layout of IDs with a node ID in the high bits and the sequence number below it, so that nodes with their own
+ * counters, e.g. processes not sharing a mapped buffer, still hand out distinct IDs. IDs stay positive.
+ */
+public class NodeIdLayout implements IdLayout
+{
+    private final long nodeBitsInPlace;
+    private final long maxSequence;
+
+    /**
+     * Initialize layout for a node.
+     *
+     * @param nodeId of this node, from 0 to 2^nodeBits - 1
+     * @param nodeBits number of bits for node IDs, from 1 to 31
+     */
+    public NodeIdLayout(final int nodeId, final int nodeBits)
+    {
+        if (nodeBits < 1 || nodeBits > 31)
+        {
+            final String msg = String.format("node bits is %d, but must be from 1 to 31", nodeBits);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (nodeId < 0 || nodeId >= (1L << nodeBits))
+        {
+            final String msg = String.format("node id is %d, but must be from 0 to %d", nodeId, (1L << nodeBits) - 1);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int sequenceBits = Long.SIZE - 1 - nodeBits;
+
+        this.nodeBitsInPlace = (long)nodeId << sequenceBits;
+        this.maxSequence = (1L << sequenceBits) - 1;
+    }
+
+    /** {@inheritDoc} */
+    public long id(final long sequence)
+    {
+        if (sequence > maxSequence)
+        {
+            throw new IllegalStateException("sequence numbers exhausted for node id layout");
+        }
+
+        return nodeBitsInPlace | sequence;
+    }
+}
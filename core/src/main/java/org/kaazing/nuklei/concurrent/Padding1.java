@@ -0,0 +1,25 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+/*
+ * Padding is to 64-bit cache lines, but might need to be 128-bit (uncomment additional padding)
+ */
+class Padding1
+{
+    protected long p1, p2, p3, p4, p5, p6, p7;
+    //protected long p101, p102, p103, p104, p105, p106, p107;
+}
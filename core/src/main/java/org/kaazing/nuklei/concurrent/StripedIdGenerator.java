@@ -0,0 +1,99 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.kaazing.nuklei.BitUtil;
+
+/**
+ * ID generator that hands each thread a block of sequence numbers from a shared counter at a time, so threads only
+ * contend on the counter once per block rather than once per ID.
+ *
+ * IDs are unique for the counter and roughly ordered, as blocks are handed out in order but used up at each
+ * thread's own pace. The counter can live in shared memory, such as the ID counter of a mapped ring buffer, for
+ * processes to share it.
+ */
+public class StripedIdGenerator implements IdGenerator
+{
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    private final AtomicBuffer buffer;
+    private final int counterOffset;
+    private final int blockSize;
+    private final IdLayout layout;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * Initialize generator with its own counter, default block size and IDs that are the sequence numbers.
+     */
+    public StripedIdGenerator()
+    {
+        this(DEFAULT_BLOCK_SIZE, IdLayout.SEQUENCE);
+    }
+
+    /**
+     * Initialize generator with its own counter.
+     *
+     * @param blockSize number of sequence numbers handed to a thread at a time
+     * @param layout of IDs composed from sequence numbers
+     */
+    public StripedIdGenerator(final int blockSize, final IdLayout layout)
+    {
+        // counter on a cache line of its own
+        this(new AtomicBuffer(new byte[3 * BitUtil.CACHE_LINE_SIZE]), BitUtil.CACHE_LINE_SIZE, blockSize, layout);
+    }
+
+    /**
+     * Initialize generator over a counter in an {@link AtomicBuffer}.
+     *
+     * @param buffer holding the counter
+     * @param counterOffset of the long counter in the buffer
+     * @param blockSize number of sequence numbers handed to a thread at a time
+     * @param layout of IDs composed from sequence numbers
+     */
+    public StripedIdGenerator(
+        final AtomicBuffer buffer, final int counterOffset, final int blockSize, final IdLayout layout)
+    {
+        if (blockSize < 1)
+        {
+            throw new IllegalArgumentException("block size must be positive");
+        }
+
+        this.buffer = buffer;
+        this.counterOffset = counterOffset;
+        this.blockSize = blockSize;
+        this.layout = layout;
+    }
+
+    /** {@inheritDoc} */
+    public long nextId()
+    {
+        final Block block = blocks.get();
+
+        if (block.next == block.limit)
+        {
+            block.next = buffer.getAndAddLong(counterOffset, blockSize);
+            block.limit = block.next + blockSize;
+        }
+
+        return layout.id(block.next++);
+    }
+
+    private static final class Block
+    {
+        long next;
+        long limit;
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+/**
+ * Signal raised by a producer after it has made work available to a consumer that may be idle.
+ *
+ * The producer calls {@link #signal()} after its writes are published. Implementations must order those writes
+ * before reading any consumer state, otherwise a consumer going idle concurrently may miss the work.
+ */
+@FunctionalInterface
+public interface WakeupSignal
+{
+    /** signal that does nothing, used when no consumer needs waking */
+    WakeupSignal NULL_SIGNAL = () ->
+    {
+    };
+
+    /**
+     * Signal that work is available.
+     */
+    void signal();
+}
@@ -15,10 +15,12 @@
  */
 package org.kaazing.nuklei.concurrent.ringbuffer;
 
+import org.kaazing.nuklei.concurrent.IdGenerator;
+
 /**
  * Interface for generating an ID that can be used between ring buffer participants
  */
-public interface RingBufferIdGenerator
+public interface RingBufferIdGenerator extends IdGenerator
 {
     /**
      * Generate and return an ID that is unique between participants.
@@ -39,6 +39,39 @@ public interface RingBufferReader
         void onMessage(final int typeId, final AtomicBuffer buffer, final int offset, final int length);
     }
 
+    /**
+     * Handler for reading messages out of a ring buffer that decides what happens to each message
+     */
+    @FunctionalInterface
+    public interface ControlledReadHandler
+    {
+        /**
+         * Action to take once a message has been handled
+         */
+        enum Action
+        {
+            /** consume the message and go on to the next */
+            CONTINUE,
+            /** consume the message and stop reading */
+            BREAK,
+            /** leave the message in place to be read again and stop reading */
+            ABORT,
+            /** consume the message, give back the space of all messages consumed so far, and go on to the next */
+            COMMIT
+        }
+
+        /**
+         * Message read from a ring buffer.
+         *
+         * @param typeId of the message
+         * @param buffer of the message
+         * @param offset within the buffer where the message starts
+         * @param length of the message in bytes
+         * @return action to take
+         */
+        Action onMessage(final int typeId, final AtomicBuffer buffer, final int offset, final int length);
+    }
+
     /**
      * Read pending messages from ring buffer up to a limit of number of messages. Does not block.
      *
@@ -47,4 +80,28 @@ public interface RingBufferReader
      * @return number of messages read
      */
     int read(final ReadHandler handler, final int limit);
+
+    /**
+     * Read pending messages from ring buffer up to a limit of number of messages, letting the handler stop the read
+     * or leave a message in place. Does not block.
+     *
+     * @param handler to call for all read messages
+     * @param limit to impose on the number of read messages
+     * @return number of messages consumed
+     */
+    default int controlledRead(final ControlledReadHandler handler, final int limit)
+    {
+        return controlledRead(handler, limit, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read pending messages from ring buffer up to a limit of number of messages and a budget of bytes, letting the
+     * handler stop the read or leave a message in place. Does not block.
+     *
+     * @param handler to call for all read messages
+     * @param limit to impose on the number of read messages
+     * @param byteLimit after which no more messages are read, the message crossing it is still read
+     * @return number of messages consumed
+     */
+    int controlledRead(final ControlledReadHandler handler, final int limit, final int byteLimit);
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.broadcast;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+
+/**
+ * One-to-many broadcast buffer constants and values shared by the Transmitter and Receivers
+ */
+public class BroadcastBuffer
+{
+    /*
+     * Trailer houses the tail of the broadcast buffer, padded to cache lines to avoid false sharing
+     *
+     * Layout
+     * TAIL INTENT (long) = 8 bytes
+     * TAIL (long) = 8 bytes
+     * LATEST (long) = 8 bytes (padded to 2 * CACHE_LINE_SIZE)
+     *
+     * TAIL INTENT is the tail the transmitter is about to move to, published before it overwrites anything so that
+     * receivers can tell when a record they copied may have been overwritten under them. LATEST is the position of
+     * the last record transmitted, where lapped receivers start again.
+     */
+    public static final int TAIL_INTENT_RELATIVE_OFFSET = 0;
+    public static final int TAIL_RELATIVE_OFFSET = TAIL_INTENT_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
+    public static final int LATEST_RELATIVE_OFFSET = TAIL_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
+    public static final int STATE_TRAILER_SIZE = 2 * BitUtil.CACHE_LINE_SIZE;
+
+    /* padding message */
+    public static final int PADDING_MSG_TYPE_ID = -1;
+
+    /* alignment for each record */
+    public static final int RECORD_ALIGNMENT = BitUtil.SIZE_OF_LONG;
+
+    /*
+     * Record Header
+     *
+     * Record Length (int) = 4 bytes (includes Header Length)
+     * Message Type (int) = 4 bytes
+     */
+    public static final int HEADER_MSG_LENGTH_OFFSET = 0;
+    public static final int HEADER_MSG_TYPE_OFFSET = HEADER_MSG_LENGTH_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int HEADER_LENGTH = HEADER_MSG_TYPE_OFFSET + BitUtil.SIZE_OF_INT;
+
+    public static void checkAtomicBufferCapacity(final AtomicBuffer buffer)
+    {
+        final int capacity = buffer.capacity() - STATE_TRAILER_SIZE;
+
+        if (capacity < 2 * BitUtil.CACHE_LINE_SIZE || Integer.bitCount(capacity) > 1)
+        {
+            final String msg = String.format(
+                "buffer capacity is %d, but must be power of 2 of at least %d + STATE_TRAILER_SIZE",
+                capacity, 2 * BitUtil.CACHE_LINE_SIZE);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    public static void checkMessageTypeId(final int typeId)
+    {
+        if (PADDING_MSG_TYPE_ID == typeId)
+        {
+            final String msg = String.format("typeId of %d is not allowed", typeId);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+}
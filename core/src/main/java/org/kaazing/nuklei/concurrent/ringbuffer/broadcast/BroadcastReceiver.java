@@ -0,0 +1,158 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.broadcast;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader;
+
+import static org.kaazing.nuklei.BitUtil.align;
+
+/**
+ * Receiver of a one-to-many broadcast buffer.
+ *
+ * Any number of receivers may follow a transmitter, each at its own pace and in its own thread. Messages are copied
+ * out before being handed over, as the transmitter may overwrite them at any time. A receiver that falls more than a
+ * buffer behind is lapped, skips to the latest message and counts it in {@link #lappedCount()}.
+ */
+public class BroadcastReceiver
+{
+    private final AtomicBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int tailIntentCounterIndex;
+    private final int tailCounterIndex;
+    private final int latestCounterIndex;
+
+    private long position;
+    private long lappedCount;
+
+    /**
+     * Initialize broadcast receiver with underlying broadcast buffer in the {@link AtomicBuffer}, receiving messages
+     * transmitted from now on.
+     *
+     * @param buffer to use as the underlying broadcast buffer.
+     */
+    public BroadcastReceiver(final AtomicBuffer buffer)
+    {
+        BroadcastBuffer.checkAtomicBufferCapacity(buffer);
+
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - BroadcastBuffer.STATE_TRAILER_SIZE;
+        this.mask = capacity - 1;
+        this.tailIntentCounterIndex = capacity + BroadcastBuffer.TAIL_INTENT_RELATIVE_OFFSET;
+        this.tailCounterIndex = capacity + BroadcastBuffer.TAIL_RELATIVE_OFFSET;
+        this.latestCounterIndex = capacity + BroadcastBuffer.LATEST_RELATIVE_OFFSET;
+        this.position = buffer.getLongVolatile(tailCounterIndex);
+    }
+
+    /**
+     * Return position of the next message to receive, in bytes since the broadcast buffer was created.
+     *
+     * @return position of the receiver
+     */
+    public long position()
+    {
+        return position;
+    }
+
+    /**
+     * Return number of times the receiver has been lapped and skipped messages.
+     *
+     * @return number of laps
+     */
+    public long lappedCount()
+    {
+        return lappedCount;
+    }
+
+    /**
+     * Receive pending messages up to a limit of number of messages. Does not block.
+     *
+     * Messages are copied to a buffer before being handed over, so the buffer must be as large as the longest message.
+     *
+     * @param handler to call for all received messages
+     * @param copyBuffer to copy messages to before handing them over
+     * @param limit to impose on the number of received messages
+     * @return number of messages received
+     */
+    public int receive(final RingBufferReader.ReadHandler handler, final AtomicBuffer copyBuffer, final int limit)
+    {
+        int messagesReceived = 0;
+
+        while (messagesReceived < limit && position < buffer.getLongVolatile(tailCounterIndex))
+        {
+            if (!isIntact(position))
+            {
+                lapped();
+                continue;
+            }
+
+            final int recordIndex = (int)position & mask;
+            final int recordLength = buffer.getInt(recordIndex + BroadcastBuffer.HEADER_MSG_LENGTH_OFFSET);
+            final int msgTypeId = buffer.getInt(recordIndex + BroadcastBuffer.HEADER_MSG_TYPE_OFFSET);
+            final int length = recordLength - BroadcastBuffer.HEADER_LENGTH;
+            final boolean padding = BroadcastBuffer.PADDING_MSG_TYPE_ID == msgTypeId;
+
+            // a record overwritten under us may have any length, only trust it once known to be intact
+            if (recordLength < BroadcastBuffer.HEADER_LENGTH || recordLength > capacity - recordIndex)
+            {
+                lapped();
+                continue;
+            }
+
+            if (!padding)
+            {
+                if (length > copyBuffer.capacity())
+                {
+                    throw new IllegalArgumentException("buffer too small for message of length " + length);
+                }
+
+                copyBuffer.putBytes(0, buffer, recordIndex + BroadcastBuffer.HEADER_LENGTH, length);
+            }
+
+            if (!isIntact(position))
+            {
+                lapped();
+                continue;
+            }
+
+            position += align(recordLength, BroadcastBuffer.RECORD_ALIGNMENT);
+
+            if (!padding)
+            {
+                ++messagesReceived;
+                handler.onMessage(msgTypeId, copyBuffer, 0, length);
+            }
+        }
+
+        return messagesReceived;
+    }
+
+    // the transmitter publishes its tail intent before overwriting, so a record not yet covered by it is intact
+    private boolean isIntact(final long recordPosition)
+    {
+        BitUtil.UNSAFE.loadFence();  // order the reads of the record before the read of the counter
+
+        return buffer.getLongVolatile(tailIntentCounterIndex) - capacity <= recordPosition;
+    }
+
+    private void lapped()
+    {
+        ++lappedCount;
+        position = buffer.getLongVolatile(latestCounterIndex);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.broadcast;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferWriter;
+
+import static org.kaazing.nuklei.BitUtil.align;
+
+/**
+ * Single Transmitter of a one-to-many broadcast buffer.
+ *
+ * Never blocks and never waits for receivers, which follow at their own pace and are lapped when too slow.
+ * Only one thread may transmit to a given buffer.
+ */
+public class BroadcastTransmitter implements RingBufferWriter
+{
+    private final AtomicBuffer buffer;
+    private final int capacity;
+    private final int mask;
+    private final int maxMessageLength;
+    private final int tailIntentCounterIndex;
+    private final int tailCounterIndex;
+    private final int latestCounterIndex;
+
+    /**
+     * Initialize broadcast transmitter with underlying broadcast buffer in the {@link AtomicBuffer}
+     *
+     * @param buffer to use as the underlying broadcast buffer.
+     */
+    public BroadcastTransmitter(final AtomicBuffer buffer)
+    {
+        BroadcastBuffer.checkAtomicBufferCapacity(buffer);
+
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - BroadcastBuffer.STATE_TRAILER_SIZE;
+        this.mask = capacity - 1;
+        this.maxMessageLength = capacity / 8;
+        this.tailIntentCounterIndex = capacity + BroadcastBuffer.TAIL_INTENT_RELATIVE_OFFSET;
+        this.tailCounterIndex = capacity + BroadcastBuffer.TAIL_RELATIVE_OFFSET;
+        this.latestCounterIndex = capacity + BroadcastBuffer.LATEST_RELATIVE_OFFSET;
+    }
+
+    /**
+     * Return capacity of broadcast buffer in bytes.
+     *
+     * @return capacity of broadcast buffer
+     */
+    public int capacity()
+    {
+        return capacity;
+    }
+
+    /**
+     * Return maximum length of a message, an eighth of the capacity so that receivers are not lapped by one message.
+     *
+     * @return maximum length of a message in bytes
+     */
+    public int maxMessageLength()
+    {
+        return maxMessageLength;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Always succeeds, overwriting the oldest messages whether or not all receivers have seen them.
+     */
+    public boolean write(final int typeId, final AtomicBuffer srcBuffer, final int offset, final int length)
+    {
+        transmit(typeId, srcBuffer, offset, length);
+
+        return true;
+    }
+
+    /**
+     * Transmit a message to all receivers.
+     *
+     * @param typeId for the message
+     * @param srcBuffer of the message to transmit
+     * @param offset of the message within the buffer
+     * @param length of the message in bytes, at most {@link #maxMessageLength()}
+     */
+    public void transmit(final int typeId, final AtomicBuffer srcBuffer, final int offset, final int length)
+    {
+        BroadcastBuffer.checkMessageTypeId(typeId);
+
+        if (length > maxMessageLength)
+        {
+            final String msg = String.format("message length is %d, but must be at most %d", length, maxMessageLength);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        long position = buffer.getLong(tailCounterIndex);
+        int recordIndex = (int)position & mask;
+        final int recordLength = length + BroadcastBuffer.HEADER_LENGTH;
+        final int alignedRecordLength = align(recordLength, BroadcastBuffer.RECORD_ALIGNMENT);
+        final int toEndOfBuffer = capacity - recordIndex;
+
+        if (toEndOfBuffer < alignedRecordLength)
+        {
+            signalTailIntent(position + toEndOfBuffer + alignedRecordLength);
+
+            buffer.putInt(recordIndex + BroadcastBuffer.HEADER_MSG_LENGTH_OFFSET, toEndOfBuffer);
+            buffer.putInt(recordIndex + BroadcastBuffer.HEADER_MSG_TYPE_OFFSET, BroadcastBuffer.PADDING_MSG_TYPE_ID);
+
+            position += toEndOfBuffer;
+            recordIndex = 0;
+        }
+        else
+        {
+            signalTailIntent(position + alignedRecordLength);
+        }
+
+        buffer.putInt(recordIndex + BroadcastBuffer.HEADER_MSG_LENGTH_OFFSET, recordLength);
+        buffer.putInt(recordIndex + BroadcastBuffer.HEADER_MSG_TYPE_OFFSET, typeId);
+        buffer.putBytes(recordIndex + BroadcastBuffer.HEADER_LENGTH, srcBuffer, offset, length);
+
+        buffer.putLong(latestCounterIndex, position);
+        buffer.putLongOrdered(tailCounterIndex, position + alignedRecordLength);
+    }
+
+    private void signalTailIntent(final long tailIntent)
+    {
+        buffer.putLongOrdered(tailIntentCounterIndex, tailIntent);
+        BitUtil.UNSAFE.storeFence();  // receivers must see the intent before any overwritten byte
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import sun.misc.Unsafe;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * {@link MpscRingBuffer} in a memory-mapped file, e.g. under /dev/shm, so that writers and the reader can be in
+ * separate processes.
+ *
+ * The file starts with a header describing the ring buffer, followed by the ring buffer and its trailer. The reader
+ * is expected to call {@link #heartbeat()} regularly so that files left behind by a process that went away can be
+ * told from files in use.
+ *
+ * Creation holds a lock on a sibling file with a {@link #LOCK_FILE_SUFFIX} suffix, so a process checking a file does
+ * not take one still being created by another process for a file left behind.
+ */
+public final class MappedMpscRingBuffer implements AutoCloseable
+{
+    /*
+     * File Header
+     *
+     * Layout
+     * MAGIC (int) = 4 bytes, written last when creating
+     * LAYOUT VERSION (int) = 4 bytes
+     * CAPACITY (int) = 4 bytes
+     * ALIGNMENT (int) = 4 bytes
+     * HEARTBEAT (long) = 8 bytes (padded to CACHE_LINE_SIZE), time in ms the reader was last known alive
+     */
+    public static final int MAGIC_OFFSET = 0;
+    public static final int LAYOUT_VERSION_OFFSET = MAGIC_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int CAPACITY_OFFSET = LAYOUT_VERSION_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int ALIGNMENT_OFFSET = CAPACITY_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int HEARTBEAT_OFFSET = ALIGNMENT_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int FILE_HEADER_LENGTH = BitUtil.CACHE_LINE_SIZE;
+
+    /* "NKRB" */
+    public static final int MAGIC = 0x4e4b5242;
+
+    /* time without heartbeat after which a ring buffer file is considered left behind */
+    public static final long LIVENESS_TIMEOUT_MS = 10000;
+
+    /* suffix of the file locked while a ring buffer file is created */
+    public static final String LOCK_FILE_SUFFIX = ".lock";
+
+    private static final Consumer<ByteBuffer> UNMAPPER = unmapper();
+
+    private final File file;
+    private final MappedByteBuffer mappedBuffer;
+    private final AtomicBuffer headerBuffer;
+    private final AtomicBuffer buffer;
+
+    private MappedMpscRingBuffer(final File file, final MappedByteBuffer mappedBuffer)
+    {
+        this.file = file;
+        this.mappedBuffer = mappedBuffer;
+        this.headerBuffer = new AtomicBuffer(mappedBuffer);
+
+        mappedBuffer.position(FILE_HEADER_LENGTH);
+        this.buffer = new AtomicBuffer(mappedBuffer.slice());
+        mappedBuffer.clear();
+    }
+
+    /**
+     * Create a ring buffer file with default alignment, zeroed by the reader.
+     *
+     * @param file to create
+     * @param capacity of the ring buffer in bytes, a power of 2
+     * @return mapped ring buffer
+     * @throws IOException if the file can not be created or mapped
+     */
+    public static MappedMpscRingBuffer create(final File file, final int capacity) throws IOException
+    {
+        return create(file, capacity, MpscRingBuffer.MESSAGE_ALIGNMENT, MpscRingBuffer.Zeroing.READER);
+    }
+
+    /**
+     * Create a ring buffer file, replacing any file left behind at the same location. Processes that still have the
+     * old file mapped keep it until they close it.
+     *
+     * @param file to create
+     * @param capacity of the ring buffer in bytes, a power of 2
+     * @param alignment of messages, see {@link MpscRingBuffer#initialize(AtomicBuffer, int, MpscRingBuffer.Zeroing)}
+     * @param zeroing side that zeroes consumed space
+     * @return mapped ring buffer
+     * @throws IOException if the file can not be created or mapped
+     * @throws IllegalStateException if the file is a ring buffer that is still in use or being created
+     */
+    public static MappedMpscRingBuffer create(
+        final File file,
+        final int capacity,
+        final int alignment,
+        final MpscRingBuffer.Zeroing zeroing) throws IOException
+    {
+        // the lock file is left in place, as deleting it would let two processes lock different files
+        try (final FileChannel lockChannel = FileChannel.open(lockFile(file).toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE))
+        {
+            final FileLock lock = tryLock(lockChannel, file);
+
+            try
+            {
+                return createLocked(file, capacity, alignment, zeroing);
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+    }
+
+    /**
+     * Return the file locked while a ring buffer file is created.
+     *
+     * @param file of the ring buffer
+     * @return lock file next to it
+     */
+    public static File lockFile(final File file)
+    {
+        return new File(file.getPath() + LOCK_FILE_SUFFIX);
+    }
+
+    /**
+     * Attach to a ring buffer file created by this or another process.
+     *
+     * @param file to attach to
+     * @return mapped ring buffer
+     * @throws IOException if the file can not be mapped
+     * @throws IllegalStateException if the file is not a ring buffer of the current layout
+     */
+    public static MappedMpscRingBuffer attach(final File file) throws IOException
+    {
+        if (file.exists() && file.length() < FILE_HEADER_LENGTH + MpscRingBuffer.STATE_TRAILER_SIZE)
+        {
+            throw new IllegalStateException("not a ring buffer file, or not fully created: " + file);
+        }
+
+        final MappedMpscRingBuffer ringBuffer = map(file, file.length(), StandardOpenOption.READ);
+
+        try
+        {
+            ringBuffer.validate(file.length());
+        }
+        catch (final IllegalStateException ex)
+        {
+            ringBuffer.close();
+            throw ex;
+        }
+
+        return ringBuffer;
+    }
+
+    /**
+     * Return whether a file is a ring buffer whose reader has been heard from within {@link #LIVENESS_TIMEOUT_MS}.
+     *
+     * @param file to check
+     * @return true if the file is a ring buffer in use
+     * @throws IOException if the file can not be mapped
+     */
+    public static boolean isInUse(final File file) throws IOException
+    {
+        if (file.length() < FILE_HEADER_LENGTH + MpscRingBuffer.STATE_TRAILER_SIZE)
+        {
+            return false;
+        }
+
+        try (final MappedMpscRingBuffer ringBuffer = map(file, file.length(), StandardOpenOption.READ))
+        {
+            ringBuffer.validate(file.length());
+
+            return !ringBuffer.isStale(System.currentTimeMillis(), LIVENESS_TIMEOUT_MS);
+        }
+        catch (final IllegalStateException ex)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Return the ring buffer and its trailer, to construct writers, readers and spies with.
+     *
+     * @return buffer holding the ring buffer
+     */
+    public AtomicBuffer buffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Return the file the ring buffer is mapped from.
+     *
+     * @return file
+     */
+    public File file()
+    {
+        return file;
+    }
+
+    /**
+     * Record that the reader is alive as of now.
+     */
+    public void heartbeat()
+    {
+        heartbeat(System.currentTimeMillis());
+    }
+
+    /**
+     * Record that the reader is alive as of a given time.
+     *
+     * @param timeMs since the epoch
+     */
+    public void heartbeat(final long timeMs)
+    {
+        headerBuffer.putLongOrdered(HEARTBEAT_OFFSET, timeMs);
+    }
+
+    /**
+     * Return the time the reader was last known alive.
+     *
+     * @return time in ms since the epoch
+     */
+    public long heartbeatTime()
+    {
+        return headerBuffer.getLongVolatile(HEARTBEAT_OFFSET);
+    }
+
+    /**
+     * Return whether the reader has not been heard from within a timeout.
+     *
+     * @param nowMs current time in ms since the epoch
+     * @param timeoutMs after which the ring buffer is considered left behind
+     * @return true if the last heartbeat is older than the timeout
+     */
+    public boolean isStale(final long nowMs, final long timeoutMs)
+    {
+        return nowMs - heartbeatTime() > timeoutMs;
+    }
+
+    /**
+     * Unmap the file. Neither {@link #buffer()} nor anything constructed with it may be used afterwards.
+     *
+     * Where the JDK offers no way to unmap, the mapping is released once the buffer is garbage collected.
+     */
+    public void close()
+    {
+        UNMAPPER.accept(mappedBuffer);
+    }
+
+    // replaces any file left behind and maps a new ring buffer, called with the lock file held
+    private static MappedMpscRingBuffer createLocked(
+        final File file,
+        final int capacity,
+        final int alignment,
+        final MpscRingBuffer.Zeroing zeroing) throws IOException
+    {
+        if (file.exists())
+        {
+            if (isInUse(file))
+            {
+                throw new IllegalStateException("ring buffer file in use: " + file);
+            }
+
+            if (!file.delete())
+            {
+                throw new IOException("could not delete ring buffer file: " + file);
+            }
+        }
+
+        final MappedMpscRingBuffer ringBuffer = map(file,
+            FILE_HEADER_LENGTH + capacity + MpscRingBuffer.STATE_TRAILER_SIZE, StandardOpenOption.CREATE_NEW);
+        final AtomicBuffer headerBuffer = ringBuffer.headerBuffer;
+
+        try
+        {
+            MpscRingBuffer.initialize(ringBuffer.buffer, alignment, zeroing);
+        }
+        catch (final IllegalArgumentException ex)
+        {
+            ringBuffer.close();
+            file.delete();
+            throw ex;
+        }
+
+        headerBuffer.putInt(LAYOUT_VERSION_OFFSET, (int)MpscRingBuffer.LAYOUT_VERSION);
+        headerBuffer.putInt(CAPACITY_OFFSET, capacity);
+        headerBuffer.putInt(ALIGNMENT_OFFSET, alignment);
+        ringBuffer.heartbeat();
+        headerBuffer.putIntOrdered(MAGIC_OFFSET, MAGIC);
+
+        return ringBuffer;
+    }
+
+    private void validate(final long fileLength)
+    {
+        if (MAGIC != headerBuffer.getIntVolatile(MAGIC_OFFSET))
+        {
+            throw new IllegalStateException("not a ring buffer file, or not fully created: " + file);
+        }
+
+        final int layoutVersion = headerBuffer.getInt(LAYOUT_VERSION_OFFSET);
+
+        if (MpscRingBuffer.LAYOUT_VERSION != layoutVersion)
+        {
+            final String msg = String.format("layout version is %d, but must be %d", layoutVersion,
+                MpscRingBuffer.LAYOUT_VERSION);
+
+            throw new IllegalStateException(msg);
+        }
+
+        final int capacity = headerBuffer.getInt(CAPACITY_OFFSET);
+
+        if (FILE_HEADER_LENGTH + capacity + MpscRingBuffer.STATE_TRAILER_SIZE != fileLength)
+        {
+            final String msg = String.format("file length is %d, but capacity is %d", fileLength, capacity);
+
+            throw new IllegalStateException(msg);
+        }
+
+        MpscRingBuffer.checkAtomicBufferCapacity(buffer);
+
+        final int alignment = headerBuffer.getInt(ALIGNMENT_OFFSET);
+
+        if (MpscRingBuffer.alignment(buffer) != alignment)
+        {
+            final String msg = String.format("file header alignment is %d, but ring buffer alignment is %d",
+                alignment, MpscRingBuffer.alignment(buffer));
+
+            throw new IllegalStateException(msg);
+        }
+    }
+
+    private static FileLock tryLock(final FileChannel channel, final File file) throws IOException
+    {
+        FileLock lock;
+
+        try
+        {
+            lock = channel.tryLock();
+        }
+        catch (final OverlappingFileLockException ex)
+        {
+            lock = null;  // held within this process
+        }
+
+        if (null == lock)
+        {
+            throw new IllegalStateException("ring buffer file being created: " + file);
+        }
+
+        return lock;
+    }
+
+    // Unsafe.invokeCleaner from JDK 9, the cleaner of DirectBuffer before that, otherwise left to the GC
+    private static Consumer<ByteBuffer> unmapper()
+    {
+        try
+        {
+            final Method invokeCleaner = Unsafe.class.getMethod("invokeCleaner", ByteBuffer.class);
+
+            return (buffer) -> invoke(invokeCleaner, BitUtil.UNSAFE, buffer);
+        }
+        catch (final NoSuchMethodException ex)
+        {
+            // fall through to JDK 8
+        }
+
+        try
+        {
+            final Method cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+            final Method clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+
+            return (buffer) -> invoke(clean, invoke(cleaner, buffer));
+        }
+        catch (final ReflectiveOperationException ex)
+        {
+            return (buffer) -> { };
+        }
+    }
+
+    private static Object invoke(final Method method, final Object target, final Object... args)
+    {
+        try
+        {
+            return method.invoke(target, args);
+        }
+        catch (final ReflectiveOperationException ex)
+        {
+            throw new IllegalStateException("could not unmap ring buffer file", ex);
+        }
+    }
+
+    private static MappedMpscRingBuffer map(final File file, final long length, final StandardOpenOption option)
+        throws IOException
+    {
+        try (final FileChannel channel = FileChannel.open(file.toPath(), option, StandardOpenOption.READ,
+                StandardOpenOption.WRITE))
+        {
+            return new MappedMpscRingBuffer(file, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+    }
+}
@@ -23,37 +23,176 @@ import org.kaazing.nuklei.concurrent.AtomicBuffer;
  */
 public class MpscRingBuffer
 {
+    /**
+     * Which side returns consumed space to the zeroed state writers rely on to publish records.
+     */
+    public enum Zeroing
+    {
+        /** the reader zeroes what it consumed before moving the head */
+        READER,
+        /** writers zero what the reader consumed before claiming it again, off the reader thread */
+        WRITERS
+    }
+
     /*
      * Trailer houses head and tail for the ring buffer, padded to cache lines to avoid false sharing
      *
      * Layout
-     * HEAD (long) = 8 bytes (padded to CACHE_LINE_SIZE)
-     * TAIL (long) = 8 bytes (padded to CACHE_LINE_SIZE)
+     * TAIL (long) = 8 bytes
+     * ZEROED (long) = 8 bytes
+     * ZERO INTENT (long) = 8 bytes (padded to CACHE_LINE_SIZE)
+     * HEAD (long) = 8 bytes
+     * HEAD INTENT (long) = 8 bytes (padded to CACHE_LINE_SIZE)
      * ID (long) = 8 bytes (padded to CACHE_LINE_SIZE)
+     * LAYOUT VERSION (long) = 8 bytes
+     * ALIGNMENT (int) = 4 bytes
+     * ZEROING (int) = 4 bytes (padded to CACHE_LINE_SIZE)
+     *
+     * HEAD INTENT is the head the reader is about to move to, published before it zeroes what it consumed so that
+     * spies can tell when a record they copied may have been zeroed under them.
+     *
+     * ZEROED and ZERO INTENT are only used when writers zero. Space up to ZEROED has been zeroed again after being
+     * consumed, and writers may only claim up to ZEROED + capacity. ZERO INTENT is ahead of ZEROED while a writer
+     * is zeroing.
      */
     public static final int TAIL_RELATIVE_OFFSET = 0;
+    public static final int ZEROED_RELATIVE_OFFSET = TAIL_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
+    public static final int ZERO_INTENT_RELATIVE_OFFSET = ZEROED_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
     public static final int HEAD_RELATIVE_OFFSET = BitUtil.CACHE_LINE_SIZE;
+    public static final int HEAD_INTENT_RELATIVE_OFFSET = HEAD_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
     public static final int ID_RELATIVE_OFFSET = 2 * BitUtil.CACHE_LINE_SIZE;
-    public static final int STATE_TRAILER_SIZE = 3 * BitUtil.CACHE_LINE_SIZE;
+    public static final int LAYOUT_VERSION_RELATIVE_OFFSET = 3 * BitUtil.CACHE_LINE_SIZE;
+    public static final int ALIGNMENT_RELATIVE_OFFSET = LAYOUT_VERSION_RELATIVE_OFFSET + BitUtil.SIZE_OF_LONG;
+    public static final int ZEROING_RELATIVE_OFFSET = ALIGNMENT_RELATIVE_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int STATE_TRAILER_SIZE = 4 * BitUtil.CACHE_LINE_SIZE;
+
+    /* version of the trailer and message header layout, 0 in the trailer means not initialized */
+    public static final long LAYOUT_VERSION = 1;
 
     /* padding message */
     public static final int PADDING_MSG_TYPE_ID = -1;
 
-    /* alignment for each message */
+    /* default alignment for each message, used when none is recorded in the trailer */
     public static final int MESSAGE_ALIGNMENT = BitUtil.CACHE_LINE_SIZE;
 
+    /* smallest alignment, keeps the header fields naturally aligned */
+    public static final int MIN_MESSAGE_ALIGNMENT = BitUtil.SIZE_OF_LONG;
+
+    /* most consumed space a writer zeroes at a time when writers zero, bounds the work added to any one claim */
+    public static final int ZERO_CHUNK_LENGTH = 4096;
+
     /*
      * Message Header
      *
      * Message Length (int) = 4 bytes (includes Header Length)
      * Message Type (int) = 4 bytes
-     * Sequence Number (long) = 8 bytes
+     * Sequence Number (long) = 8 bytes (position of the message in bytes since the ring buffer was created)
      */
     public static final int HEADER_MSG_LENGTH_OFFSET = 0;
-    public static final int HEADER_MSG_TYPE_OFFSET = BitUtil.SIZE_OF_INT;
-    public static final int HEADER_MSG_SEQNUM_OFFSET = BitUtil.SIZE_OF_INT;
+    public static final int HEADER_MSG_TYPE_OFFSET = HEADER_MSG_LENGTH_OFFSET + BitUtil.SIZE_OF_INT;
+    public static final int HEADER_MSG_SEQNUM_OFFSET = HEADER_MSG_TYPE_OFFSET + BitUtil.SIZE_OF_INT;
     public static final int HEADER_LENGTH = HEADER_MSG_SEQNUM_OFFSET + BitUtil.SIZE_OF_LONG;
 
+    /**
+     * Initialize the trailer of a ring buffer, recording the layout version. Buffers that are not initialized are
+     * treated as having the current layout.
+     *
+     * @param buffer holding the ring buffer
+     */
+    public static void initialize(final AtomicBuffer buffer)
+    {
+        initialize(buffer, MESSAGE_ALIGNMENT);
+    }
+
+    /**
+     * Initialize the trailer of a ring buffer, recording the layout version and the alignment of messages so that
+     * writers, readers and spies agree on it. Must happen before any of them is created.
+     *
+     * Smaller alignments pack short messages more densely at the cost of messages sharing cache lines between
+     * concurrent writers.
+     *
+     * @param buffer holding the ring buffer
+     * @param alignment of messages in bytes, a power of 2 from {@link #MIN_MESSAGE_ALIGNMENT} to
+     *                  {@link org.kaazing.nuklei.BitUtil#CACHE_LINE_SIZE}
+     */
+    public static void initialize(final AtomicBuffer buffer, final int alignment)
+    {
+        initialize(buffer, alignment, Zeroing.READER);
+    }
+
+    /**
+     * Initialize the trailer of a ring buffer, recording the layout version, the alignment of messages and which
+     * side zeroes consumed space. Must happen before any writer, reader or spy is created.
+     *
+     * With {@link Zeroing#WRITERS} the reader only moves the head, and writers zero consumed space when they need
+     * it or once a quarter of the buffer is waiting, at most {@link #ZERO_CHUNK_LENGTH} bytes at a time. This takes
+     * memory traffic off the reader when it is the bottleneck, at the cost of writers occasionally zeroing on behalf
+     * of all of them.
+     *
+     * @param buffer holding the ring buffer
+     * @param alignment of messages in bytes, a power of 2 from {@link #MIN_MESSAGE_ALIGNMENT} to
+     *                  {@link org.kaazing.nuklei.BitUtil#CACHE_LINE_SIZE}
+     * @param zeroing side that zeroes consumed space
+     */
+    public static void initialize(final AtomicBuffer buffer, final int alignment, final Zeroing zeroing)
+    {
+        checkAtomicBufferCapacity(buffer);
+
+        if (alignment < MIN_MESSAGE_ALIGNMENT || alignment > BitUtil.CACHE_LINE_SIZE ||
+            1 != Integer.bitCount(alignment))
+        {
+            final String msg = String.format("alignment is %d, but must be power of 2 from %d to %d",
+                    alignment, MIN_MESSAGE_ALIGNMENT, BitUtil.CACHE_LINE_SIZE);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int capacity = buffer.capacity() - STATE_TRAILER_SIZE;
+
+        buffer.putInt(capacity + ALIGNMENT_RELATIVE_OFFSET, alignment);
+        buffer.putInt(capacity + ZEROING_RELATIVE_OFFSET, zeroing.ordinal());
+        buffer.putLongOrdered(capacity + LAYOUT_VERSION_RELATIVE_OFFSET, LAYOUT_VERSION);
+    }
+
+    /**
+     * Return the alignment of messages recorded in the trailer of a ring buffer.
+     *
+     * @param buffer holding the ring buffer
+     * @return alignment of messages in bytes
+     */
+    public static int alignment(final AtomicBuffer buffer)
+    {
+        final int alignment = buffer.getIntVolatile(buffer.capacity() - STATE_TRAILER_SIZE + ALIGNMENT_RELATIVE_OFFSET);
+
+        return 0 != alignment ? alignment : MESSAGE_ALIGNMENT;
+    }
+
+    /**
+     * Return which side zeroes consumed space, as recorded in the trailer of a ring buffer.
+     *
+     * @param buffer holding the ring buffer
+     * @return side that zeroes consumed space
+     */
+    public static Zeroing zeroing(final AtomicBuffer buffer)
+    {
+        final int zeroing = buffer.getIntVolatile(buffer.capacity() - STATE_TRAILER_SIZE + ZEROING_RELATIVE_OFFSET);
+
+        return Zeroing.WRITERS.ordinal() == zeroing ? Zeroing.WRITERS : Zeroing.READER;
+    }
+
+    /**
+     * Return the sequence number of a message handed to a reader or spy handler. Sequence numbers increase
+     * monotonically and are the position of the message, so they can be used to detect gaps and to resume.
+     *
+     * @param buffer handed to the handler
+     * @param offset of the message handed to the handler
+     * @return sequence number of the message
+     */
+    public static long messageSequence(final AtomicBuffer buffer, final int offset)
+    {
+        return buffer.getLong(offset - HEADER_LENGTH + HEADER_MSG_SEQNUM_OFFSET);
+    }
+
     public static void checkAtomicBufferCapacity(final AtomicBuffer buffer)
     {
         final int capacity = buffer.capacity() - STATE_TRAILER_SIZE;
@@ -65,6 +204,15 @@ public class MpscRingBuffer
 
             throw new IllegalArgumentException(msg);
         }
+
+        final long version = buffer.getLongVolatile(capacity + LAYOUT_VERSION_RELATIVE_OFFSET);
+
+        if (0 != version && LAYOUT_VERSION != version)
+        {
+            final String msg = String.format("layout version is %d, but must be %d", version, LAYOUT_VERSION);
+
+            throw new IllegalStateException(msg);
+        }
     }
 
     public static void checkMessageTypeId(final int typeId)
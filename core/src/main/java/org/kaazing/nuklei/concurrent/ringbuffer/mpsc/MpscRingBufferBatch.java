@@ -0,0 +1,133 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+
+/**
+ * Producer local staging of messages laid out as records of a {@link MpscRingBuffer}, so a
+ * {@link MpscRingBufferWriter} can publish all of them with a single claim on the tail.
+ *
+ * Not thread safe. Each producer has its own.
+ */
+public class MpscRingBufferBatch
+{
+    private final AtomicBuffer buffer;
+    private final int alignment;
+
+    private int length;
+    private int size;
+
+    /**
+     * Construct a batch for ring buffers with the default alignment.
+     *
+     * @param capacity of the batch in bytes, including headers and alignment of each message
+     */
+    public MpscRingBufferBatch(final int capacity)
+    {
+        this(capacity, MpscRingBuffer.MESSAGE_ALIGNMENT);
+    }
+
+    /**
+     * Construct a batch for ring buffers with a given alignment.
+     *
+     * @param capacity of the batch in bytes, including headers and alignment of each message
+     * @param alignment of messages in the ring buffers the batch is written to
+     */
+    public MpscRingBufferBatch(final int capacity, final int alignment)
+    {
+        this.buffer = new AtomicBuffer(new byte[BitUtil.align(capacity, alignment)]);
+        this.alignment = alignment;
+    }
+
+    /**
+     * Add a message to the end of the batch.
+     *
+     * @param typeId for the message
+     * @param srcBuffer of the message to add
+     * @param offset of the message within the buffer
+     * @param length of the message in bytes
+     * @return whether the message fit in the batch
+     */
+    public boolean add(final int typeId, final AtomicBuffer srcBuffer, final int offset, final int length)
+    {
+        MpscRingBuffer.checkMessageTypeId(typeId);
+
+        final int recordLength = length + MpscRingBuffer.HEADER_LENGTH;
+        final int alignedLength = BitUtil.align(recordLength, alignment);
+
+        if (alignedLength > buffer.capacity() - this.length)
+        {
+            return false;
+        }
+
+        final int recordIndex = this.length;
+
+        buffer.putInt(recordIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET, recordLength);
+        buffer.putInt(recordIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, typeId);
+        buffer.putBytes(recordIndex + MpscRingBuffer.HEADER_LENGTH, srcBuffer, offset, length);
+
+        this.length += alignedLength;
+        size++;
+
+        return true;
+    }
+
+    /**
+     * Discard all messages in the batch.
+     */
+    public void clear()
+    {
+        length = 0;
+        size = 0;
+    }
+
+    /**
+     * Return the number of messages in the batch.
+     *
+     * @return number of messages
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Return the space the batch takes in a ring buffer.
+     *
+     * @return length in bytes of all messages, including headers and alignment
+     */
+    public int length()
+    {
+        return length;
+    }
+
+    /**
+     * Return the alignment of messages in the batch.
+     *
+     * @return alignment in bytes
+     */
+    public int alignment()
+    {
+        return alignment;
+    }
+
+    AtomicBuffer buffer()
+    {
+        return buffer;
+    }
+}
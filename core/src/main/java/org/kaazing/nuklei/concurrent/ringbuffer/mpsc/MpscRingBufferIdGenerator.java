@@ -16,16 +16,22 @@
 package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
 
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.IdLayout;
+import org.kaazing.nuklei.concurrent.StripedIdGenerator;
 import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferIdGenerator;
 
 /**
  * MPSC Ring Buffer ID generator
+ *
+ * Takes IDs from the counter in the trailer of the ring buffer one at a time, or a block per thread at a time when
+ * many threads generate IDs.
  */
 public class MpscRingBufferIdGenerator implements RingBufferIdGenerator
 {
     private final AtomicBuffer buffer;
     private final int idCounterIndex;
     private final int capacity;
+    private final StripedIdGenerator stripedIds;
 
     /**
      * Initialize ring buffer id generator with underling ring buffer in the {@link AtomicBuffer}
@@ -39,11 +45,35 @@ public class MpscRingBufferIdGenerator implements RingBufferIdGenerator
         this.buffer = buffer;
         this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
         this.idCounterIndex = capacity + MpscRingBuffer.ID_RELATIVE_OFFSET;
+        this.stripedIds = null;
+    }
+
+    /**
+     * Initialize ring buffer id generator that hands each thread a block of IDs at a time, see
+     * {@link StripedIdGenerator}.
+     *
+     * @param buffer to use as the underlying ring buffer.
+     * @param blockSize number of IDs handed to a thread at a time
+     * @param layout of IDs composed from the counter
+     */
+    public MpscRingBufferIdGenerator(final AtomicBuffer buffer, final int blockSize, final IdLayout layout)
+    {
+        MpscRingBuffer.checkAtomicBufferCapacity(buffer);
+
+        this.buffer = buffer;
+        this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
+        this.idCounterIndex = capacity + MpscRingBuffer.ID_RELATIVE_OFFSET;
+        this.stripedIds = new StripedIdGenerator(buffer, idCounterIndex, blockSize, layout);
     }
 
     /** {@inheritDoc} */
     public long nextId()
     {
+        if (null != stripedIds)
+        {
+            return stripedIds.nextId();
+        }
+
         return buffer.getAndAddLong(idCounterIndex, 1);
     }
 }
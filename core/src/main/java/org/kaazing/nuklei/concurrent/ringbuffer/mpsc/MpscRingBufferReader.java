@@ -15,6 +15,7 @@
  */
 package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
 
+import org.kaazing.nuklei.BitUtil;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
 import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader;
 
@@ -27,9 +28,14 @@ public class MpscRingBufferReader implements RingBufferReader
 {
     private final AtomicBuffer buffer;
     private final int mask;
+    private final int alignment;
+    private final boolean zeroes;
     private final int tailCounterOffset;
     private final int headCounterOffset;
+    private final int headIntentCounterOffset;
     private final int capacity;
+    private final StageSequences sequences;
+    private final int[] dependencies;
 
     /**
      * Initialize ring buffer reader with underling ring buffer in the {@link AtomicBuffer}
@@ -37,14 +43,37 @@ public class MpscRingBufferReader implements RingBufferReader
      * @param buffer to use as the underlying ring buffer.
      */
     public MpscRingBufferReader(final AtomicBuffer buffer)
+    {
+        this(buffer, null);
+    }
+
+    /**
+     * Initialize ring buffer reader that follows the last stages of a pipeline of {@link MpscRingBufferStage}s, so
+     * that space is only given back to writers once every stage has processed it.
+     *
+     * @param buffer to use as the underlying ring buffer.
+     * @param sequences of the stages of the pipeline
+     * @param dependencies stages whose messages the reader follows
+     */
+    public MpscRingBufferReader(final AtomicBuffer buffer, final StageSequences sequences, final int... dependencies)
     {
         MpscRingBuffer.checkAtomicBufferCapacity(buffer);
 
+        for (final int dependency : dependencies)
+        {
+            sequences.checkStage(dependency);
+        }
+
         this.buffer = buffer;
+        this.sequences = sequences;
+        this.dependencies = dependencies.clone();
         this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
         this.mask = capacity - 1;
+        this.alignment = MpscRingBuffer.alignment(buffer);
+        this.zeroes = MpscRingBuffer.Zeroing.READER == MpscRingBuffer.zeroing(buffer);
         this.tailCounterOffset = capacity + MpscRingBuffer.TAIL_RELATIVE_OFFSET;
         this.headCounterOffset = capacity + MpscRingBuffer.HEAD_RELATIVE_OFFSET;
+        this.headIntentCounterOffset = capacity + MpscRingBuffer.HEAD_INTENT_RELATIVE_OFFSET;
     }
 
     /**
@@ -57,12 +86,23 @@ public class MpscRingBufferReader implements RingBufferReader
         return capacity;
     }
 
+    /**
+     * Return position of the next message to read, in bytes since the ring buffer was created. Messages read so far
+     * have sequence numbers, see {@link MpscRingBuffer#messageSequence(AtomicBuffer, int)}, below it.
+     *
+     * @return position of the reader
+     */
+    public long position()
+    {
+        return headVolatile();
+    }
+
     /** {@inheritDoc} */
     public int read(final ReadHandler handler, final int limit)
     {
-        final long tail = tailVolatile();
+        final long end = limitVolatile();
         final long head = headVolatile();
-        final int available = (int)(tail - head);
+        final int available = (int)(end - head);
         int messagesRead = 0;
 
         if (available > 0)
@@ -80,7 +120,7 @@ public class MpscRingBufferReader implements RingBufferReader
 
                     final int msgTypeId = readMsgTypeId(messageIndex);
 
-                    bytesRead += align(messageLength, MpscRingBuffer.MESSAGE_ALIGNMENT);
+                    bytesRead += align(messageLength, alignment);
 
                     if (MpscRingBuffer.PADDING_MSG_TYPE_ID != msgTypeId)
                     {
@@ -92,22 +132,112 @@ public class MpscRingBufferReader implements RingBufferReader
             }
             finally
             {
-                buffer.setMemory(headIndex, bytesRead, (byte) 0);
-                putHeadOrdered(head + bytesRead);
+                release(head, headIndex, bytesRead);
             }
         }
 
         return messagesRead;
     }
 
+    /** {@inheritDoc} */
+    public int controlledRead(final ControlledReadHandler handler, final int limit, final int byteLimit)
+    {
+        final long end = limitVolatile();
+        final long head = headVolatile();
+        final int available = (int)(end - head);
+        int messagesRead = 0;
+
+        if (available > 0)
+        {
+            final int headIndex = (int)head & mask;
+            final int contiguousBlockSize = Math.min(available, capacity - headIndex);
+            int bytesReleased = 0;
+            int bytesRead = 0;
+
+            try
+            {
+                while ((bytesRead < contiguousBlockSize) && (messagesRead < limit) && (bytesRead < byteLimit))
+                {
+                    final int messageIndex = headIndex + bytesRead;
+                    final int messageLength = waitForMsgLengthVolatile(messageIndex);
+                    final int alignedLength = align(messageLength, alignment);
+
+                    final int msgTypeId = readMsgTypeId(messageIndex);
+
+                    bytesRead += alignedLength;
+
+                    if (MpscRingBuffer.PADDING_MSG_TYPE_ID == msgTypeId)
+                    {
+                        continue;
+                    }
+
+                    ++messagesRead;
+                    final ControlledReadHandler.Action action = handler.onMessage(msgTypeId, buffer,
+                        messageIndex + MpscRingBuffer.HEADER_LENGTH, messageLength - MpscRingBuffer.HEADER_LENGTH);
+
+                    if (ControlledReadHandler.Action.ABORT == action)
+                    {
+                        bytesRead -= alignedLength;
+                        --messagesRead;
+                        break;
+                    }
+
+                    if (ControlledReadHandler.Action.BREAK == action)
+                    {
+                        break;
+                    }
+
+                    if (ControlledReadHandler.Action.COMMIT == action)
+                    {
+                        release(head + bytesReleased, headIndex + bytesReleased, bytesRead - bytesReleased);
+                        bytesReleased = bytesRead;
+                    }
+                }
+            }
+            finally
+            {
+                release(head + bytesReleased, headIndex + bytesReleased, bytesRead - bytesReleased);
+            }
+        }
+
+        return messagesRead;
+    }
+
+    // gives consumed space back to writers, behind head intent so spies know it may be zeroed
+    private void release(final long head, final int headIndex, final int length)
+    {
+        putHeadIntentOrdered(head + length);
+
+        if (zeroes)
+        {
+            BitUtil.UNSAFE.storeFence();  // spies must see the intent before any zeroed byte
+            buffer.setMemory(headIndex, length, (byte) 0);
+        }
+
+        putHeadOrdered(head + length);
+    }
+
     private long headVolatile()
     {
         return buffer.getLongVolatile(headCounterOffset);
     }
 
-    private long tailVolatile()
+    // stages never pass the tail, so the slowest stage followed is the limit when there are any
+    private long limitVolatile()
     {
-        return buffer.getLongVolatile(tailCounterOffset);
+        if (0 == dependencies.length)
+        {
+            return buffer.getLongVolatile(tailCounterOffset);
+        }
+
+        long limit = Long.MAX_VALUE;
+
+        for (final int dependency : dependencies)
+        {
+            limit = Math.min(limit, sequences.sequence(dependency));
+        }
+
+        return limit;
     }
 
     private int waitForMsgLengthVolatile(final int messageIndex)
@@ -118,7 +248,7 @@ public class MpscRingBufferReader implements RingBufferReader
         {
             length = buffer.getIntVolatile(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
         }
-        while (0 == length);
+        while (length <= 0);  // zero until written, negative while claimed
 
         return length;
     }
@@ -132,4 +262,9 @@ public class MpscRingBufferReader implements RingBufferReader
     {
         buffer.putLongOrdered(headCounterOffset, value);
     }
+
+    private void putHeadIntentOrdered(final long value)
+    {
+        buffer.putLongOrdered(headIntentCounterOffset, value);
+    }
 }
@@ -15,19 +15,32 @@
  */
 package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
 
+import org.kaazing.nuklei.BitUtil;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
 import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferSpy;
 
+import static org.kaazing.nuklei.BitUtil.align;
+
 /**
  * Multiple Publisher, Single Consumer Ring Buffer Spy
+ *
+ * Follows the ring buffer from its own position without holding back the reader or the writers. A message is only
+ * handed on once it has been checked, after copying it, that the reader has not started to consume and zero it.
+ * When that has happened, or the sequence number in the header is not the spy's position, the spy has been lapped:
+ * it counts the lap and jumps forward to where the reader is.
  */
 public class MpscRingBufferSpy implements RingBufferSpy
 {
     private final AtomicBuffer buffer;
-    private final long head;
-    private final int headCounterIndex;
+    private final int tailCounterIndex;
+    private final int headIntentCounterIndex;
     private final int capacity;
     private final int mask;
+    private final int alignment;
+
+    private long position;
+    private long lappedCount;
+    private long viewPosition;
 
     /**
      * Initialize ring buffer spy with underlying ring buffer in the {@link AtomicBuffer}
@@ -35,25 +48,229 @@ public class MpscRingBufferSpy implements RingBufferSpy
      * @param buffer to use as the underlying buffer.
      */
     public MpscRingBufferSpy(final AtomicBuffer buffer)
+    {
+        this(buffer, buffer.getLongVolatile(
+            buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE + MpscRingBuffer.HEAD_RELATIVE_OFFSET));
+    }
+
+    /**
+     * Initialize ring buffer spy with underlying ring buffer in the {@link AtomicBuffer}, resuming from a position
+     * such as a {@link #position()} or message sequence number saved earlier. If the reader has moved past it the
+     * first spy counts as lapped.
+     *
+     * @param buffer to use as the underlying buffer.
+     * @param position to start spying from, must be the position of a message
+     */
+    public MpscRingBufferSpy(final AtomicBuffer buffer, final long position)
     {
         MpscRingBuffer.checkAtomicBufferCapacity(buffer);
 
         this.buffer = buffer;
         this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
         this.mask = capacity - 1;
-        this.headCounterIndex = capacity + MpscRingBuffer.HEAD_RELATIVE_OFFSET;
+        this.alignment = MpscRingBuffer.alignment(buffer);
+        this.tailCounterIndex = capacity + MpscRingBuffer.TAIL_RELATIVE_OFFSET;
+        this.headIntentCounterIndex = capacity + MpscRingBuffer.HEAD_INTENT_RELATIVE_OFFSET;
+        this.position = position;
+    }
+
+    /**
+     * Return position of the next message to spy on, in bytes since the ring buffer was created.
+     *
+     * @return position of the spy
+     */
+    public long position()
+    {
+        return position;
+    }
+
+    /**
+     * Return number of times the spy has been lapped and skipped messages.
+     *
+     * @return number of laps
+     */
+    public long lappedCount()
+    {
+        return lappedCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Messages are copied with their header, so the buffer must have room for {@link MpscRingBuffer#HEADER_LENGTH}
+     * bytes more than the longest message.
+     */
+    public int spy(final SpyHandler handler, final AtomicBuffer copyBuffer, final int limit)
+    {
+        int messagesSpied = 0;
+
+        while (messagesSpied < limit)
+        {
+            final int messageIndex = nextMessageIndex();
+
+            if (-1 == messageIndex)
+            {
+                break;
+            }
+
+            final int messageLength = buffer.getIntVolatile(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+
+            if (messageLength <= 0)
+            {
+                break;  // not yet committed
+            }
+
+            final int msgTypeId = buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET);
+            final long sequence = sequence(messageIndex, messageLength);
+            final int length = messageLength - MpscRingBuffer.HEADER_LENGTH;
+            final boolean padding = MpscRingBuffer.PADDING_MSG_TYPE_ID == msgTypeId;
+
+            if (sequence != position || !isIntact(position))
+            {
+                lapped();
+                continue;
+            }
+
+            if (!padding)
+            {
+                if (messageLength > copyBuffer.capacity())
+                {
+                    throw new IllegalArgumentException("buffer too small for message of length " + length);
+                }
+
+                // header included, so the sequence number can be read from the copy as from the ring buffer
+                copyBuffer.putBytes(0, buffer, messageIndex, messageLength);
+            }
+
+            if (!isIntact(position))
+            {
+                lapped();
+                continue;
+            }
 
-        this.head = headVolatile();
+            position += align(messageLength, alignment);
+
+            if (!padding)
+            {
+                ++messagesSpied;
+                handler.onMessage(msgTypeId, copyBuffer, MpscRingBuffer.HEADER_LENGTH, length);
+            }
+        }
+
+        return messagesSpied;
     }
 
-    /** {@inheritDoc} */
-    public int spy(final SpyHandler handler, final AtomicBuffer buffer, final int limit)
+    /**
+     * Spy on messages in place, without copying, up to a limit of number of messages. Does not block.
+     *
+     * The handler is given the ring buffer itself and the message may be overwritten while it is being looked at.
+     * Anything taken from it is only valid if {@link #validate()} returns true afterwards.
+     *
+     * @param handler to call for all spied messages
+     * @param limit to impose on the number of spied messages
+     * @return number of messages spied that were still intact after the handler returned
+     */
+    public int view(final SpyHandler handler, final int limit)
     {
-        return 0;
+        int messagesSpied = 0;
+
+        while (messagesSpied < limit)
+        {
+            final int messageIndex = nextMessageIndex();
+
+            if (-1 == messageIndex)
+            {
+                break;
+            }
+
+            final int messageLength = buffer.getIntVolatile(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+
+            if (messageLength <= 0)
+            {
+                break;  // not yet committed
+            }
+
+            final int msgTypeId = buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET);
+            final long sequence = sequence(messageIndex, messageLength);
+
+            if (sequence != position || !isIntact(position))
+            {
+                lapped();
+                continue;
+            }
+
+            viewPosition = position;
+
+            if (MpscRingBuffer.PADDING_MSG_TYPE_ID != msgTypeId)
+            {
+                handler.onMessage(msgTypeId, buffer, messageIndex + MpscRingBuffer.HEADER_LENGTH,
+                    messageLength - MpscRingBuffer.HEADER_LENGTH);
+
+                if (!isIntact(viewPosition))
+                {
+                    lapped();
+                    continue;
+                }
+
+                ++messagesSpied;
+            }
+
+            position += align(messageLength, alignment);
+        }
+
+        return messagesSpied;
+    }
+
+    /**
+     * Return whether the message currently being viewed by a {@link #view(SpyHandler, int)} handler is still intact,
+     * i.e. whether what has been read from it so far can be trusted.
+     *
+     * @return true if the message has not been overwritten or zeroed
+     */
+    public boolean validate()
+    {
+        return isIntact(viewPosition);
+    }
+
+    // padding may be too short to carry a sequence number, it is then known only by its position
+    private long sequence(final int messageIndex, final int messageLength)
+    {
+        if (messageLength < MpscRingBuffer.HEADER_LENGTH)
+        {
+            return position;
+        }
+
+        return buffer.getLong(messageIndex + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET);
+    }
+
+    // returns -1 when caught up with the tail, repositions when lapped before even starting
+    private int nextMessageIndex()
+    {
+        if (!isIntact(position))
+        {
+            lapped();
+        }
+
+        if (position >= buffer.getLongVolatile(tailCounterIndex))
+        {
+            return -1;
+        }
+
+        return (int)position & mask;
+    }
+
+    // writers cannot claim past head + capacity and head never passes head intent, so the reader having not yet
+    // started to consume a message also means no writer has reclaimed its space
+    private boolean isIntact(final long messagePosition)
+    {
+        BitUtil.UNSAFE.loadFence();  // order the reads of the message before the read of the counter
+
+        return buffer.getLongVolatile(headIntentCounterIndex) <= messagePosition;
     }
 
-    private long headVolatile()
+    private void lapped()
     {
-        return buffer.getLongVolatile(headCounterIndex);
+        ++lappedCount;
+        position = buffer.getLongVolatile(headIntentCounterIndex);
     }
 }
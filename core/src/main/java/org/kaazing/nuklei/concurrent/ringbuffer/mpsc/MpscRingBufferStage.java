@@ -0,0 +1,161 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader;
+
+import static org.kaazing.nuklei.BitUtil.align;
+
+/**
+ * Stage of a pipeline over a {@link MpscRingBuffer} that processes messages in place, in order, after the stages it
+ * depends on and before the stages and reader that depend on it. Never gives space back to writers, that is left
+ * to a {@link MpscRingBufferReader} depending on the last stages.
+ *
+ * Messages may be modified in place for later stages to see, but not resized.
+ */
+public class MpscRingBufferStage
+{
+    private final AtomicBuffer buffer;
+    private final StageSequences sequences;
+    private final int stage;
+    private final int[] dependencies;
+    private final int mask;
+    private final int alignment;
+    private final int tailCounterOffset;
+    private final int capacity;
+
+    /**
+     * Initialize a stage over a ring buffer.
+     *
+     * @param buffer to use as the underlying ring buffer.
+     * @param sequences of the stages of the pipeline
+     * @param stage whose sequence this stage owns
+     * @param dependencies stages whose messages this stage follows, none to follow writers directly
+     */
+    public MpscRingBufferStage(
+        final AtomicBuffer buffer,
+        final StageSequences sequences,
+        final int stage,
+        final int... dependencies)
+    {
+        MpscRingBuffer.checkAtomicBufferCapacity(buffer);
+        sequences.checkStage(stage);
+
+        for (final int dependency : dependencies)
+        {
+            sequences.checkStage(dependency);
+        }
+
+        this.buffer = buffer;
+        this.sequences = sequences;
+        this.stage = stage;
+        this.dependencies = dependencies.clone();
+        this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
+        this.mask = capacity - 1;
+        this.alignment = MpscRingBuffer.alignment(buffer);
+        this.tailCounterOffset = capacity + MpscRingBuffer.TAIL_RELATIVE_OFFSET;
+    }
+
+    /**
+     * Return position of the next message to process, in bytes since the ring buffer was created.
+     *
+     * @return sequence of the stage
+     */
+    public long position()
+    {
+        return sequences.sequence(stage);
+    }
+
+    /**
+     * Process pending messages in place up to a limit of number of messages. Does not block.
+     *
+     * @param handler to call for all processed messages
+     * @param limit to impose on the number of processed messages
+     * @return number of messages processed
+     */
+    public int read(final RingBufferReader.ReadHandler handler, final int limit)
+    {
+        final long available = availableVolatile();
+        final long sequence = sequences.sequence(stage);
+        final int availableBytes = (int)(available - sequence);
+        int messagesRead = 0;
+
+        if (availableBytes > 0)
+        {
+            final int sequenceIndex = (int)sequence & mask;
+            final int contiguousBlockSize = Math.min(availableBytes, capacity - sequenceIndex);
+            int bytesRead = 0;
+
+            try
+            {
+                while ((bytesRead < contiguousBlockSize) && (messagesRead < limit))
+                {
+                    final int messageIndex = sequenceIndex + bytesRead;
+                    final int messageLength = waitForMsgLengthVolatile(messageIndex);
+
+                    final int msgTypeId = buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET);
+
+                    bytesRead += align(messageLength, alignment);
+
+                    if (MpscRingBuffer.PADDING_MSG_TYPE_ID != msgTypeId)
+                    {
+                        ++messagesRead;
+                        handler.onMessage(msgTypeId, buffer, messageIndex + MpscRingBuffer.HEADER_LENGTH,
+                                messageLength - MpscRingBuffer.HEADER_LENGTH);
+                    }
+                }
+            }
+            finally
+            {
+                sequences.sequenceOrdered(stage, sequence + bytesRead);
+            }
+        }
+
+        return messagesRead;
+    }
+
+    // with no dependencies messages up to the tail are claimed, but may not be committed yet
+    private long availableVolatile()
+    {
+        if (0 == dependencies.length)
+        {
+            return buffer.getLongVolatile(tailCounterOffset);
+        }
+
+        long available = Long.MAX_VALUE;
+
+        for (final int dependency : dependencies)
+        {
+            available = Math.min(available, sequences.sequence(dependency));
+        }
+
+        return available;
+    }
+
+    private int waitForMsgLengthVolatile(final int messageIndex)
+    {
+        int length;
+
+        do
+        {
+            length = buffer.getIntVolatile(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+        }
+        while (length <= 0);  // zero until written, negative while claimed
+
+        return length;
+    }
+}
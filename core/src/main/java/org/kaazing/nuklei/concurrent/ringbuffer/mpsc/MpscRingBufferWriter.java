@@ -17,6 +17,7 @@ package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
 
 import org.kaazing.nuklei.BitUtil;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.WakeupSignal;
 import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferWriter;
 
 /**
@@ -24,14 +25,25 @@ import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferWriter;
  */
 public class MpscRingBufferWriter implements RingBufferWriter
 {
-    private static final int INSUFFICIENT_CAPACITY = -1;
+    /* returned by tryClaim when there is no room for the message */
+    public static final int CLAIM_FAILED = -1;
+
+    private static final long INSUFFICIENT_CAPACITY = -1;
 
     private final AtomicBuffer buffer;
     private final int mask;
+    private final int alignment;
     private final int tailCounterOffset;
     private final int headCounterOffset;
+    private final int zeroedCounterOffset;
+    private final int zeroIntentCounterOffset;
+    private final boolean zeroes;
+    private final int zeroThreshold;
+    private final int zeroChunkLength;
     private final int capacity;
 
+    private volatile WakeupSignal wakeupSignal = WakeupSignal.NULL_SIGNAL;
+
     /**
      * Initialize ring buffer writer with underling ring buffer in the {@link AtomicBuffer}
      *
@@ -44,8 +56,14 @@ public class MpscRingBufferWriter implements RingBufferWriter
         this.buffer = buffer;
         this.capacity = buffer.capacity() - MpscRingBuffer.STATE_TRAILER_SIZE;
         this.mask = capacity - 1;
+        this.alignment = MpscRingBuffer.alignment(buffer);
         this.tailCounterOffset = capacity + MpscRingBuffer.TAIL_RELATIVE_OFFSET;
         this.headCounterOffset = capacity + MpscRingBuffer.HEAD_RELATIVE_OFFSET;
+        this.zeroedCounterOffset = capacity + MpscRingBuffer.ZEROED_RELATIVE_OFFSET;
+        this.zeroIntentCounterOffset = capacity + MpscRingBuffer.ZERO_INTENT_RELATIVE_OFFSET;
+        this.zeroes = MpscRingBuffer.Zeroing.WRITERS == MpscRingBuffer.zeroing(buffer);
+        this.zeroThreshold = capacity >> 2;
+        this.zeroChunkLength = Math.min(zeroThreshold, MpscRingBuffer.ZERO_CHUNK_LENGTH);
     }
 
     /**
@@ -58,32 +76,282 @@ public class MpscRingBufferWriter implements RingBufferWriter
         return capacity;
     }
 
+    /**
+     * Return alignment of messages in bytes.
+     *
+     * @return alignment of messages
+     */
+    public int alignment()
+    {
+        return alignment;
+    }
+
+    /**
+     * Return the underlying buffer messages are claimed in.
+     *
+     * @return buffer holding the ring buffer
+     */
+    public AtomicBuffer buffer()
+    {
+        return buffer;
+    }
+
+    /**
+     * Set the {@link WakeupSignal} raised after each successful write.
+     *
+     * @param wakeupSignal to raise, or {@link WakeupSignal#NULL_SIGNAL} for none
+     */
+    public void wakeupSignal(final WakeupSignal wakeupSignal)
+    {
+        this.wakeupSignal = wakeupSignal;
+    }
+
     /** {@inheritDoc} */
     public boolean write(final int typeId, final AtomicBuffer buffer, final int offset, final int length)
     {
         MpscRingBuffer.checkMessageTypeId(typeId);
 
-        final int requiredCapacity = BitUtil.align(length + MpscRingBuffer.HEADER_LENGTH,
-                MpscRingBuffer.MESSAGE_ALIGNMENT);
-        final int messageIndex = claim(requiredCapacity);  // claim slot, padding if necessary
+        final int requiredCapacity = BitUtil.align(length + MpscRingBuffer.HEADER_LENGTH, alignment);
+        final long position = claim(requiredCapacity);  // claim slot, padding if necessary
 
-        if (INSUFFICIENT_CAPACITY == messageIndex)
+        if (INSUFFICIENT_CAPACITY == position)
         {
             return false;
         }
 
+        final int messageIndex = (int)position & mask;
+
         writeMsgTypeId(messageIndex, typeId);
+        writeMsgSequence(messageIndex, position);
         writeMsg(messageIndex, buffer, offset, length);
-        // TODO: write sequence number for tail value (ordered) - if needed for spy
         writeMsgLengthOrdered(messageIndex, length + MpscRingBuffer.HEADER_LENGTH);
+        wakeupSignal.signal();
 
         return true;
     }
 
-    private int claim(final int requiredCapacity)
+    /**
+     * Return the longest {@link MpscRingBufferBatch} that {@link #writeBatch(MpscRingBufferBatch)} accepts, half the
+     * capacity.
+     *
+     * @return maximum batch length in bytes
+     */
+    public int maxBatchLength()
     {
+        return capacity >> 1;
+    }
+
+    /**
+     * Write all messages of a batch with a single claim on the tail, so a busy producer contends for it once per
+     * batch rather than once per message. Messages are published in the order they were added.
+     *
+     * The batch is cleared once written, and left as it is for a retry when there is no room. A batch is claimed as
+     * one contiguous run, so it is limited to {@link #maxBatchLength()} to be sure it fits at the end or, after
+     * padding, at the start of the buffer once the reader catches up.
+     *
+     * @param batch of messages to write
+     * @return whether write was successful or not. If not successful, should be retried.
+     * @throws IllegalArgumentException if the batch is longer than {@link #maxBatchLength()}
+     */
+    public boolean writeBatch(final MpscRingBufferBatch batch)
+    {
+        if (batch.alignment() != alignment)
+        {
+            final String msg = String.format("batch alignment is %d, but ring buffer alignment is %d",
+                batch.alignment(), alignment);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int batchLength = batch.length();
+
+        if (batchLength > maxBatchLength())
+        {
+            final String msg = String.format("batch length is %d, but must be at most %d",
+                batchLength, maxBatchLength());
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (0 == batchLength)
+        {
+            return true;
+        }
+
+        final long position = claim(batchLength);
+
+        if (INSUFFICIENT_CAPACITY == position)
+        {
+            return false;
+        }
+
+        final AtomicBuffer batchBuffer = batch.buffer();
+        final int batchIndex = (int)position & mask;
+        int recordIndex = 0;
+
+        while (recordIndex < batchLength)
+        {
+            final int messageIndex = batchIndex + recordIndex;
+            final int recordLength = batchBuffer.getInt(recordIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+
+            writeMsgTypeId(messageIndex, batchBuffer.getInt(recordIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET));
+            writeMsgSequence(messageIndex, position + recordIndex);
+            writeMsg(messageIndex, batchBuffer, recordIndex + MpscRingBuffer.HEADER_LENGTH,
+                recordLength - MpscRingBuffer.HEADER_LENGTH);
+            writeMsgLengthOrdered(messageIndex, recordLength);
+
+            recordIndex += BitUtil.align(recordLength, alignment);
+        }
+
+        batch.clear();
+        wakeupSignal.signal();
+
+        return true;
+    }
+
+    /**
+     * Return the longest message {@link #tryClaim(int, int)} can be sure to claim once the reader catches up, so the
+     * claimed record is at most half the capacity.
+     *
+     * @return maximum claim length in bytes
+     */
+    public int maxClaimLength()
+    {
+        return (capacity >> 1) - MpscRingBuffer.HEADER_LENGTH;
+    }
+
+    /**
+     * Claim space for a message of up to a given length so it can be encoded in place, e.g. through a
+     * {@link org.kaazing.nuklei.Flyweight} wrapping {@link #buffer()}, instead of being copied in by
+     * {@link #write(int, AtomicBuffer, int, int)}.
+     *
+     * The claim must be completed with {@link #commit(int)}, {@link #commit(int, int)} or {@link #abort(int)} without
+     * delay, as the reader waits for it before going on to later messages.
+     *
+     * @param typeId for the message
+     * @param length of the message in bytes, at most
+     * @return index of the message within {@link #buffer()}, or {@link #CLAIM_FAILED} if there is no room
+     */
+    public int tryClaim(final int typeId, final int length)
+    {
+        MpscRingBuffer.checkMessageTypeId(typeId);
+
+        final int recordLength = length + MpscRingBuffer.HEADER_LENGTH;
+        final long position = claim(BitUtil.align(recordLength, alignment));
+
+        if (INSUFFICIENT_CAPACITY == position)
+        {
+            return CLAIM_FAILED;
+        }
+
+        final int messageIndex = (int)position & mask;
+
+        writeMsgTypeId(messageIndex, typeId);
+        writeMsgSequence(messageIndex, position);
+        buffer.putInt(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET, -recordLength);
+
+        return messageIndex + MpscRingBuffer.HEADER_LENGTH;
+    }
+
+    /**
+     * Publish a claimed message with the length it was claimed with.
+     *
+     * @param index of the message as returned by {@link #tryClaim(int, int)}
+     */
+    public void commit(final int index)
+    {
+        final int messageIndex = index - MpscRingBuffer.HEADER_LENGTH;
+        final int recordLength = -buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+
+        writeMsgLengthOrdered(messageIndex, recordLength);
+        wakeupSignal.signal();
+    }
+
+    /**
+     * Publish a claimed message that turned out shorter than claimed. The rest of the claimed space is padded away.
+     *
+     * @param index of the message as returned by {@link #tryClaim(int, int)}
+     * @param length of the message in bytes, no more than claimed
+     */
+    public void commit(final int index, final int length)
+    {
+        final int messageIndex = index - MpscRingBuffer.HEADER_LENGTH;
+        final int claimedLength = -buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+        final int recordLength = length + MpscRingBuffer.HEADER_LENGTH;
+
+        if (length < 0 || recordLength > claimedLength)
+        {
+            final String msg = String.format("length is %d, but claimed %d", length,
+                claimedLength - MpscRingBuffer.HEADER_LENGTH);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int alignedLength = BitUtil.align(recordLength, alignment);
+        final int padding = BitUtil.align(claimedLength, alignment) - alignedLength;
+
+        if (0 < padding)
+        {
+            final long position = buffer.getLong(messageIndex + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET);
+
+            writePaddingRecord(messageIndex + alignedLength, position + alignedLength, padding);
+        }
+
+        writeMsgLengthOrdered(messageIndex, recordLength);
+        wakeupSignal.signal();
+    }
+
+    /**
+     * Give up a claimed message, turning its space into padding the reader skips.
+     *
+     * @param index of the message as returned by {@link #tryClaim(int, int)}
+     */
+    public void abort(final int index)
+    {
+        final int messageIndex = index - MpscRingBuffer.HEADER_LENGTH;
+        final int claimedLength = -buffer.getInt(messageIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET);
+
+        writeMsgTypeId(messageIndex, MpscRingBuffer.PADDING_MSG_TYPE_ID);
+        writeMsgLengthOrdered(messageIndex, BitUtil.align(claimedLength, alignment));
+    }
+
+    private long claim(final int requiredCapacity)
+    {
+        if (!zeroes)
+        {
+            return claim(requiredCapacity, headVolatile());
+        }
+
         final long head = headVolatile();
-        final int headIndex = (int)head & mask;
+        long zeroed = zeroedVolatile();
+
+        if (head - zeroed >= zeroThreshold)
+        {
+            zeroed = zero(zeroed, head);
+        }
+
+        long position = claim(requiredCapacity, zeroed);
+
+        while (INSUFFICIENT_CAPACITY == position && zeroed < head)
+        {
+            final long nowZeroed = zero(zeroed, head);
+
+            if (nowZeroed == zeroed)
+            {
+                break;  // another writer is zeroing
+            }
+
+            zeroed = nowZeroed;
+            position = claim(requiredCapacity, zeroed);
+        }
+
+        return position;
+    }
+
+    // claims up to limit + capacity, limit being the head or, when writers zero, how far consumed space is zeroed
+    private long claim(final int requiredCapacity, final long limit)
+    {
+        final int limitIndex = (int)limit & mask;
 
         long tail;
         int tailIndex;
@@ -91,7 +359,7 @@ public class MpscRingBufferWriter implements RingBufferWriter
         do
         {
             tail = tailVolatile();
-            final int availableCapacity = capacity - (int)(tail - head);
+            final int availableCapacity = capacity - (int)(tail - limit);
 
             if (requiredCapacity > availableCapacity)
             {
@@ -105,7 +373,7 @@ public class MpscRingBufferWriter implements RingBufferWriter
 
             if (requiredCapacity > bufferEndSize)
             {
-                if (requiredCapacity > headIndex)
+                if (requiredCapacity > limitIndex)
                 {
                     return INSUFFICIENT_CAPACITY;
                 }
@@ -117,11 +385,33 @@ public class MpscRingBufferWriter implements RingBufferWriter
 
         if (0 < padding)
         {
-            writePaddingRecord(tailIndex, padding);
-            tailIndex = 0;
+            writePaddingRecord(tailIndex, tail, padding);
         }
 
-        return tailIndex;
+        return tail + padding;
+    }
+
+    // zeroes the next chunk of what the reader consumed, one writer at a time, and returns how far is zeroed
+    private long zero(final long zeroed, final long head)
+    {
+        final int zeroedIndex = (int)zeroed & mask;
+        final int length = (int)Math.min(head - zeroed, Math.min(zeroChunkLength, capacity - zeroedIndex));
+        final long nowZeroed = zeroed + length;
+
+        if (!buffer.compareAndSwapLong(zeroIntentCounterOffset, zeroed, nowZeroed))
+        {
+            return zeroedVolatile();  // another writer is zeroing, or already has
+        }
+
+        buffer.setMemory(zeroedIndex, length, (byte)0);
+        buffer.putLongOrdered(zeroedCounterOffset, nowZeroed);
+
+        return nowZeroed;
+    }
+
+    private long zeroedVolatile()
+    {
+        return buffer.getLongVolatile(zeroedCounterOffset);
     }
 
     private long headVolatile()
@@ -134,13 +424,24 @@ public class MpscRingBufferWriter implements RingBufferWriter
         return buffer.getLongVolatile(tailCounterOffset);
     }
 
-    private void writePaddingRecord(final int messageIndex, final int padding)
+    // with small alignments padding may be too short for a sequence number, never for length and type
+    private void writePaddingRecord(final int messageIndex, final long position, final int padding)
     {
         writeMsgTypeId(messageIndex, MpscRingBuffer.PADDING_MSG_TYPE_ID);
-        // TODO: write sequence number ordered - if needed for spy
+
+        if (padding >= MpscRingBuffer.HEADER_LENGTH)
+        {
+            writeMsgSequence(messageIndex, position);
+        }
+
         writeMsgLengthOrdered(messageIndex, padding);
     }
 
+    private void writeMsgSequence(final int messageIndex, final long position)
+    {
+        buffer.putLong(messageIndex + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, position);
+    }
+
     private void writeMsgTypeId(final int messageIndex, final int typeId)
     {
         buffer.putInt(messageIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, typeId);
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+
+/**
+ * Sequences of the stages of a pipeline over a {@link MpscRingBuffer}, each padded to its own cache lines.
+ *
+ * A stage processes messages in place once the stages it depends on have, and the reader of the ring buffer
+ * follows the last stages, so writers never reclaim space a stage has not yet processed. Sequences are positions in
+ * bytes since the ring buffer was created, and start at 0 along with a new ring buffer.
+ */
+public class StageSequences
+{
+    /* two cache lines per sequence, so that adjacent line prefetch does not bring in false sharing */
+    public static final int SEQUENCE_LENGTH = 2 * BitUtil.CACHE_LINE_SIZE;
+
+    private final AtomicBuffer buffer;
+    private final int stageCount;
+
+    /**
+     * Return length of a buffer holding the sequences of a number of stages.
+     *
+     * @param stageCount number of stages
+     * @return length in bytes
+     */
+    public static int length(final int stageCount)
+    {
+        return stageCount * SEQUENCE_LENGTH;
+    }
+
+    /**
+     * Initialize stage sequences held in an {@link AtomicBuffer}, e.g. next to the ring buffer in the same memory.
+     *
+     * @param buffer holding the sequences, see {@link #length(int)}
+     */
+    public StageSequences(final AtomicBuffer buffer)
+    {
+        if (buffer.capacity() < SEQUENCE_LENGTH)
+        {
+            final String msg = String.format("buffer capacity is %d, but must hold at least one sequence of %d",
+                buffer.capacity(), SEQUENCE_LENGTH);
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.buffer = buffer;
+        this.stageCount = buffer.capacity() / SEQUENCE_LENGTH;
+    }
+
+    /**
+     * Return number of stages.
+     *
+     * @return number of stages
+     */
+    public int stageCount()
+    {
+        return stageCount;
+    }
+
+    /**
+     * Return the sequence of a stage, the position of the next message it will process.
+     *
+     * @param stage whose sequence to return
+     * @return sequence of the stage
+     */
+    public long sequence(final int stage)
+    {
+        return buffer.getLongVolatile(stage * SEQUENCE_LENGTH);
+    }
+
+    void sequenceOrdered(final int stage, final long value)
+    {
+        buffer.putLongOrdered(stage * SEQUENCE_LENGTH, value);
+    }
+
+    void checkStage(final int stage)
+    {
+        if (stage < 0 || stage >= stageCount)
+        {
+            final String msg = String.format("stage is %d, but must be from 0 to %d", stage, stageCount - 1);
+
+            throw new IllegalArgumentException(msg);
+        }
+    }
+}
@@ -17,15 +17,16 @@
 package org.kaazing.nuklei.net;
 
 import org.kaazing.nuklei.NioSelectorNukleus;
+import org.kaazing.nuklei.SelectionHandler;
+import org.kaazing.nuklei.concurrent.ArrayBufferWriter;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+import org.kaazing.nuklei.concurrent.IdGenerator;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.function.IntSupplier;
 
 /**
  */
@@ -35,8 +36,9 @@ public class TcpAcceptor
     private final TcpInterfaceAcceptor[] acceptors;
     private final AtomicBuffer receiveBuffer;
     private final NioSelectorNukleus selectorNukleus;
-    private final MpscArrayBuffer<Object> tcpReaderCommandQueue;
-    private final MpscArrayBuffer<Object> tcpSenderCommandQueue;
+    private final ArrayBufferWriter<Object> tcpReaderCommandQueue;
+    private final ArrayBufferWriter<Object> tcpSenderCommandQueue;
+    private final IdGenerator connectionIds;
 
     public TcpAcceptor(
         final int port,
@@ -44,14 +46,16 @@ public class TcpAcceptor
         final long id,
         final AtomicBuffer receiveBuffer,
         final NioSelectorNukleus selectorNukleus,
-        final MpscArrayBuffer<Object> tcpReaderCommandQueue,
-        final MpscArrayBuffer<Object> tcpSenderCommandQueue)
+        final ArrayBufferWriter<Object> tcpReaderCommandQueue,
+        final ArrayBufferWriter<Object> tcpSenderCommandQueue,
+        final IdGenerator connectionIds)
     {
         this.id = id;
         this.receiveBuffer = receiveBuffer;
         this.selectorNukleus = selectorNukleus;
         this.tcpReaderCommandQueue = tcpReaderCommandQueue;
         this.tcpSenderCommandQueue = tcpSenderCommandQueue;
+        this.connectionIds = connectionIds;
 
         try
         {
@@ -64,7 +68,7 @@ public class TcpAcceptor
                 acceptor.configureBlocking(false);
 
                 acceptors[0] = new TcpInterfaceAcceptor(acceptor);
-                selectorNukleus.register(acceptors[0].acceptor(), SelectionKey.OP_ACCEPT, composeAcceptor(acceptors[0]));
+                selectorNukleus.register(acceptors[0].acceptor(), SelectionKey.OP_ACCEPT, acceptors[0]);
             }
             else
             {
@@ -77,7 +81,7 @@ public class TcpAcceptor
                     acceptor.configureBlocking(false);
 
                     acceptors[i] = new TcpInterfaceAcceptor(acceptor);
-                    selectorNukleus.register(acceptors[i].acceptor(), SelectionKey.OP_ACCEPT, composeAcceptor(acceptors[i]));
+                    selectorNukleus.register(acceptors[i].acceptor(), SelectionKey.OP_ACCEPT, acceptors[i]);
                 }
             }
         }
@@ -103,7 +107,7 @@ public class TcpAcceptor
 
     private int onAcceptable(final SocketChannel channel)
     {
-        final long id = tcpSenderCommandQueue.nextId();
+        final long id = connectionIds.nextId();
 
         try
         {
@@ -116,31 +120,14 @@ public class TcpAcceptor
 
         final TcpConnection transport = new TcpConnection(channel, id, receiveBuffer);
 
-        // pass transport off to other nukleus' to process
+        // pass transport off to other nukleus' to process, queues are unbounded so connections are never dropped
         tcpReaderCommandQueue.write(transport);
         tcpSenderCommandQueue.write(transport);
 
         return 1;
     }
 
-    private IntSupplier composeAcceptor(final TcpInterfaceAcceptor acceptor)
-    {
-        return () ->
-        {
-            try
-            {
-                return onAcceptable(acceptor.acceptor().accept());
-            }
-            catch (final Exception ex)
-            {
-                ex.printStackTrace();  // TODO: temporary
-            }
-
-            return 0;
-        };
-    }
-
-    private static class TcpInterfaceAcceptor
+    private class TcpInterfaceAcceptor implements SelectionHandler
     {
         final ServerSocketChannel acceptor;
 
@@ -165,5 +152,25 @@ public class TcpAcceptor
         {
             return acceptor;
         }
+
+        /** {@inheritDoc} */
+        public int onAcceptable()
+        {
+            try
+            {
+                final SocketChannel channel = acceptor.accept();
+
+                if (null != channel)
+                {
+                    return TcpAcceptor.this.onAcceptable(channel);
+                }
+            }
+            catch (final Exception ex)
+            {
+                ex.printStackTrace();  // TODO: temporary
+            }
+
+            return 0;
+        }
     }
 }
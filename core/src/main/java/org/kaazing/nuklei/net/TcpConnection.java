@@ -17,24 +17,33 @@
 package org.kaazing.nuklei.net;
 
 import org.kaazing.nuklei.BitUtil;
+import org.kaazing.nuklei.SelectionHandler;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
 import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferWriter;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.SocketChannel;
 
 /**
  */
-public class TcpConnection
+public class TcpConnection implements SelectionHandler
 {
     public static final int MAX_RECEIVE_LENGTH = 4096;
+    public static final int STAGING_RECEIVE_LENGTH = 256;
 
     private final SocketChannel channel;
     private final MpscRingBufferWriter receiveWriter;
     private final long id;
+    private final AtomicBuffer receiveBuffer;
     private final ByteBuffer receiveByteBuffer;
-    private final AtomicBuffer atomicBuffer;
+    private final int receiveLength;
+    private final ByteBuffer stagingByteBuffer;
+
+    private TcpReceiver receiver;
+    private boolean receivePending;
+    private boolean closed;
 
     // TODO: connect version of constructor
 
@@ -46,10 +55,22 @@ public class TcpConnection
     {
         this.channel = channel;
         this.id = id;
+        this.receiveBuffer = receiveBuffer;
 
         receiveWriter = new MpscRingBufferWriter(receiveBuffer);
-        receiveByteBuffer = ByteBuffer.allocateDirect(MAX_RECEIVE_LENGTH).order(ByteOrder.nativeOrder());
-        atomicBuffer = new AtomicBuffer(receiveByteBuffer);
+        receiveByteBuffer = receiveBuffer.duplicateByteBuffer();  // view of the ring buffer to read into
+        receiveLength = Math.min(MAX_RECEIVE_LENGTH, receiveWriter.maxClaimLength() - BitUtil.SIZE_OF_LONG);
+
+        if (receiveLength <= 0)
+        {
+            final String msg = String.format("receive buffer capacity is %d, too small to receive into",
+                receiveWriter.capacity());
+
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int stagingLength = BitUtil.SIZE_OF_LONG + Math.min(STAGING_RECEIVE_LENGTH, receiveLength);
+        stagingByteBuffer = ByteBuffer.allocateDirect(stagingLength).order(ByteOrder.nativeOrder());
 
         informOfNewConnection();
     }
@@ -83,39 +104,199 @@ public class TcpConnection
         }
     }
 
+    /** {@inheritDoc} */
     public int onReadable()
     {
-        try
+        if (receivePending || closed)
         {
-            receiveByteBuffer.clear();
-            receiveByteBuffer.putLong(id);
-            final int length = channel.read(receiveByteBuffer);
+            return 0;
+        }
 
-            if (!receiveWriter.write(TcpManagerEvents.RECEIVED_DATA_TYPE_ID, atomicBuffer, 0, length + BitUtil.SIZE_OF_LONG))
-            {
-                throw new IllegalStateException("could not write to receive buffer");
-            }
+        // small reads are staged and copied in at their exact length, so they take no more of the shared ring
+        stagingByteBuffer.clear();
+        stagingByteBuffer.putLong(id);
+
+        if (0 == read(stagingByteBuffer))
+        {
+            return 0;
         }
-        catch (final Exception ex)
+
+        publishReceived();
+
+        if (receivePending)
         {
-            ex.printStackTrace(); // TODO: temp
+            receiver.onReceivePending(this);
         }
 
         return 0;
     }
 
+    /** {@inheritDoc} */
     public int onWritable()
     {
         return 0;
     }
 
+    /**
+     * Whether data read from the channel, or its closing, is waiting for room in the receive buffer. The channel is
+     * not read again until it has been published, so nothing is lost while the receive buffer is full.
+     *
+     * @return true if waiting to be published
+     */
+    public boolean isReceivePending()
+    {
+        return receivePending;
+    }
+
+    /**
+     * Whether the channel has reached end of stream or failed, and is closed.
+     *
+     * @return true if closed
+     */
+    public boolean isClosed()
+    {
+        return closed;
+    }
+
+    /**
+     * Retry publishing what found no room in the receive buffer before.
+     *
+     * @return 1 if it was published, 0 if it is still pending
+     */
+    public int retryReceive()
+    {
+        if (!receivePending)
+        {
+            return 0;
+        }
+
+        publishReceived();
+
+        return receivePending ? 0 : 1;
+    }
+
+    // set by the receiver before the channel is registered for reads, and only used on its thread
+    void receiver(final TcpReceiver receiver)
+    {
+        this.receiver = receiver;
+    }
+
+    private void publishReceived()
+    {
+        if (closed)
+        {
+            receivePending = !publishClosed();
+            return;
+        }
+
+        final int stagedLength = stagingByteBuffer.position();
+
+        if (stagingByteBuffer.hasRemaining())
+        {
+            final int index = receiveWriter.tryClaim(TcpManagerEvents.RECEIVED_DATA_TYPE_ID, stagedLength);
+
+            receivePending = MpscRingBufferWriter.CLAIM_FAILED == index;
+
+            if (!receivePending)
+            {
+                copyStaged(index, stagedLength);
+                receiveWriter.commit(index);
+            }
+
+            return;
+        }
+
+        // staging filled up, so there may be more to read; read the rest straight into a claimed record
+        final int index = receiveWriter.tryClaim(TcpManagerEvents.RECEIVED_DATA_TYPE_ID,
+            BitUtil.SIZE_OF_LONG + receiveLength);
+
+        receivePending = MpscRingBufferWriter.CLAIM_FAILED == index;
+
+        if (!receivePending)
+        {
+            copyStaged(index, stagedLength);
+            receiveByteBuffer.limit(index + BitUtil.SIZE_OF_LONG + receiveLength);
+            receiveByteBuffer.position(index + stagedLength);
+            read(receiveByteBuffer);
+            receiveWriter.commit(index, receiveByteBuffer.position() - index);
+
+            if (closed)
+            {
+                receivePending = !publishClosed();
+            }
+        }
+    }
+
+    private void copyStaged(final int index, final int stagedLength)
+    {
+        stagingByteBuffer.flip();
+        receiveByteBuffer.limit(index + stagedLength);
+        receiveByteBuffer.position(index);
+        receiveByteBuffer.put(stagingByteBuffer);
+    }
+
+    private boolean publishClosed()
+    {
+        final int index = receiveWriter.tryClaim(TcpManagerEvents.CONNECTION_CLOSED_TYPE_ID, BitUtil.SIZE_OF_LONG);
+
+        if (MpscRingBufferWriter.CLAIM_FAILED == index)
+        {
+            return false;
+        }
+
+        receiveBuffer.putLong(index, id);
+        receiveWriter.commit(index);
+        receiver.onClosed(this);
+
+        return true;
+    }
+
+    // end of stream and read failures both close the channel, which is then reported by a closed connection event
+    private int read(final ByteBuffer buffer)
+    {
+        int length;
+
+        try
+        {
+            length = channel.read(buffer);
+        }
+        catch (final IOException ex)
+        {
+            length = -1;
+        }
+
+        if (-1 == length)
+        {
+            close();
+        }
+
+        return length;
+    }
+
+    private void close()
+    {
+        closed = true;
+
+        try
+        {
+            channel.close();
+        }
+        catch (final IOException ex)
+        {
+            // already closing, nothing more to release
+        }
+    }
+
     private void informOfNewConnection()
     {
-        atomicBuffer.putLong(0, id);
+        final int index = receiveWriter.tryClaim(TcpManagerEvents.NEW_CONNECTION_TYPE_ID, BitUtil.SIZE_OF_LONG);
 
-        if (!receiveWriter.write(TcpManagerEvents.NEW_CONNECTION_TYPE_ID, atomicBuffer, 0, BitUtil.SIZE_OF_LONG))
+        if (MpscRingBufferWriter.CLAIM_FAILED == index)
         {
             throw new IllegalStateException("could not write to receive buffer");
         }
+
+        receiveBuffer.putLong(index, id);
+        receiveWriter.commit(index);
     }
 }
@@ -17,10 +17,15 @@
 package org.kaazing.nuklei.net;
 
 import org.kaazing.nuklei.MessagingNukleus;
+import org.kaazing.nuklei.NioSelectorIdler;
 import org.kaazing.nuklei.NioSelectorNukleus;
 import org.kaazing.nuklei.Nuklei;
+import org.kaazing.nuklei.concurrent.ArrayBufferReader;
+import org.kaazing.nuklei.concurrent.ArrayBufferWriter;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+import org.kaazing.nuklei.concurrent.MpscLinkedArrayBuffer;
+import org.kaazing.nuklei.concurrent.StripedIdGenerator;
+import org.kaazing.nuklei.concurrent.WakeupSignal;
 import org.kaazing.nuklei.net.command.TcpDetachCmd;
 import org.kaazing.nuklei.net.command.TcpLocalAttachCmd;
 
@@ -33,27 +38,50 @@ import java.util.Map;
 public class TcpManager
 {
     private static final int MPSC_READ_LIMIT = 10;
-    private static final int TCP_READER_COMMAND_QUEUE_SIZE = 1024;
-    private static final int TCP_SENDER_COMMAND_QUEUE_SIZE = 1024;
+    private static final int TCP_READER_COMMAND_QUEUE_CHUNK_SIZE = 1024;
+    private static final int TCP_SENDER_COMMAND_QUEUE_CHUNK_SIZE = 1024;
 
     private final MessagingNukleus messagingNukleus;
     private final NioSelectorNukleus acceptNioSelectorNukleus;
     private final NioSelectorNukleus receiveNioSelectorNukleus;
     private final NioSelectorNukleus sendNioSelectorNukleus;
-    private final MpscArrayBuffer<Object> tcpReaderCommandQueue;
-    private final MpscArrayBuffer<Object> tcpSenderCommandQueue;
+    private final MpscLinkedArrayBuffer<Object> tcpReaderCommandQueue;
+    private final MpscLinkedArrayBuffer<Object> tcpSenderCommandQueue;
+    private final StripedIdGenerator connectionIds;
     private final TcpReceiver tcpReceiver;
     private final TcpSender tcpSender;
     private final Map<Long, TcpAcceptor> localAttachesByIdMap;
+    private final NioSelectorIdler acceptIdler;
+    private final NioSelectorIdler receiveIdler;
+    private final NioSelectorIdler sendIdler;
+    private final AtomicBuffer sendBuffer;
 
-    public TcpManager(final MpscArrayBuffer<Object> commandQueue, final AtomicBuffer sendBuffer)
+    public TcpManager(final ArrayBufferReader<Object> commandQueue, final AtomicBuffer sendBuffer)
+        throws Exception
+    {
+        this(commandQueue, sendBuffer, 0);
+    }
+
+    /**
+     * Construct a manager whose threads can block in their selectors when idle, see {@link #acceptIdler()},
+     * {@link #receiveIdler()} and {@link #sendIdler()}. Only then do the queues of the manager pay for raising a
+     * wakeup signal on each write.
+     *
+     * @param commandQueue to read commands from
+     * @param sendBuffer to read data to send from
+     * @param selectTimeoutMs to block in the selectors for at most, or 0 for threads that do not block in them
+     * @throws Exception if the selectors can not be opened
+     */
+    public TcpManager(final ArrayBufferReader<Object> commandQueue, final AtomicBuffer sendBuffer,
+                      final long selectTimeoutMs)
         throws Exception
     {
         acceptNioSelectorNukleus = new NioSelectorNukleus(Selector.open());
         receiveNioSelectorNukleus = new NioSelectorNukleus(Selector.open());
         sendNioSelectorNukleus = new NioSelectorNukleus(Selector.open());
-        tcpReaderCommandQueue = new MpscArrayBuffer<>(TCP_READER_COMMAND_QUEUE_SIZE);
-        tcpSenderCommandQueue = new MpscArrayBuffer<>(TCP_SENDER_COMMAND_QUEUE_SIZE);
+        tcpReaderCommandQueue = new MpscLinkedArrayBuffer<>(TCP_READER_COMMAND_QUEUE_CHUNK_SIZE);
+        tcpSenderCommandQueue = new MpscLinkedArrayBuffer<>(TCP_SENDER_COMMAND_QUEUE_CHUNK_SIZE);
+        connectionIds = new StripedIdGenerator();
 
         final MessagingNukleus.Builder builder = new MessagingNukleus.Builder()
             .mpscArrayBuffer(commandQueue, this::commandHandler, MPSC_READ_LIMIT)
@@ -63,6 +91,76 @@ public class TcpManager
         tcpReceiver = new TcpReceiver(tcpReaderCommandQueue, receiveNioSelectorNukleus);
         tcpSender = new TcpSender(tcpSenderCommandQueue, sendBuffer, sendNioSelectorNukleus);
         localAttachesByIdMap = new HashMap<>();
+        this.sendBuffer = sendBuffer;
+
+        if (selectTimeoutMs > 0)
+        {
+            acceptIdler = new NioSelectorIdler(
+                acceptNioSelectorNukleus.selector, NioSelectorIdler.DEFAULT_IDLE_PASSES, selectTimeoutMs);
+            receiveIdler = new NioSelectorIdler(
+                receiveNioSelectorNukleus.selector, NioSelectorIdler.DEFAULT_IDLE_PASSES, selectTimeoutMs);
+            sendIdler = new NioSelectorIdler(
+                sendNioSelectorNukleus.selector, NioSelectorIdler.DEFAULT_IDLE_PASSES, selectTimeoutMs);
+            tcpReaderCommandQueue.wakeupSignal(receiveIdler);
+            tcpSenderCommandQueue.wakeupSignal(sendIdler);
+        }
+        else
+        {
+            acceptIdler = null;
+            receiveIdler = null;
+            sendIdler = null;
+        }
+    }
+
+    /**
+     * Return the idler for the thread passed as manageNuklei to {@link #launch(Nuklei, Nuklei, Nuklei)}.
+     * It blocks in the accept selector when idle.
+     *
+     * The command queue belongs to the caller, so is left alone. Raise the idler as its
+     * {@link WakeupSignal}, together with any signal of the caller's own, for commands to wake the thread.
+     *
+     * @return idler for the manage thread
+     * @throws IllegalStateException if constructed without a select timeout
+     */
+    public NioSelectorIdler acceptIdler()
+    {
+        return checkIdler(acceptIdler);
+    }
+
+    /**
+     * Return the idler for the thread passed as receiverNuklei to {@link #launch(Nuklei, Nuklei, Nuklei)}.
+     *
+     * @return idler for the receiver thread
+     * @throws IllegalStateException if constructed without a select timeout
+     */
+    public NioSelectorIdler receiveIdler()
+    {
+        return checkIdler(receiveIdler);
+    }
+
+    /**
+     * Return the idler for the thread passed as senderNuklei to {@link #launch(Nuklei, Nuklei, Nuklei)}. It is
+     * raised by proxies from {@link #proxy(ArrayBufferWriter)} on each send.
+     *
+     * @return idler for the sender thread
+     * @throws IllegalStateException if constructed without a select timeout
+     */
+    public NioSelectorIdler sendIdler()
+    {
+        return checkIdler(sendIdler);
+    }
+
+    /**
+     * Construct a proxy for the manager whose sends wake the sender thread when it uses {@link #sendIdler()}.
+     *
+     * @param commandQueue of the manager, also used for attach IDs
+     * @return proxy writing to the send buffer of the manager
+     */
+    public TcpManagerProxy proxy(final ArrayBufferWriter<Object> commandQueue)
+    {
+        final WakeupSignal sendSignal = (null != sendIdler) ? sendIdler : WakeupSignal.NULL_SIGNAL;
+
+        return new TcpManagerProxy(commandQueue, sendBuffer, commandQueue, sendSignal);
     }
 
     public void launch(final Nuklei nuklei)
@@ -84,6 +182,16 @@ public class TcpManager
         localAttachesByIdMap.forEach((id, acceptor) -> acceptor.close());
     }
 
+    private static NioSelectorIdler checkIdler(final NioSelectorIdler idler)
+    {
+        if (null == idler)
+        {
+            throw new IllegalStateException("manager constructed without a select timeout");
+        }
+
+        return idler;
+    }
+
     private void commandHandler(final Object obj)
     {
         if (obj instanceof TcpLocalAttachCmd)
@@ -97,7 +205,8 @@ public class TcpManager
                     cmd.receiveBuffer(),
                     acceptNioSelectorNukleus,
                     tcpReaderCommandQueue,
-                    tcpSenderCommandQueue);
+                    tcpSenderCommandQueue,
+                    connectionIds);
 
             localAttachesByIdMap.put(cmd.id(), acceptor);
         }
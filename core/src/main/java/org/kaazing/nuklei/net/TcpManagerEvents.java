@@ -24,4 +24,5 @@ public class TcpManagerEvents
     public static final int NEW_CONNECTION_TYPE_ID = 1;
     public static final int RECEIVED_DATA_TYPE_ID = 2;
     public static final int SEND_DATA_TYPE_ID = 3;
+    public static final int CONNECTION_CLOSED_TYPE_ID = 4;
 }
@@ -16,8 +16,10 @@
 
 package org.kaazing.nuklei.net;
 
+import org.kaazing.nuklei.concurrent.ArrayBufferWriter;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+import org.kaazing.nuklei.concurrent.IdGenerator;
+import org.kaazing.nuklei.concurrent.WakeupSignal;
 import org.kaazing.nuklei.concurrent.ringbuffer.mpsc.MpscRingBufferWriter;
 import org.kaazing.nuklei.net.command.TcpDetachCmd;
 import org.kaazing.nuklei.net.command.TcpLocalAttachCmd;
@@ -29,15 +31,50 @@ import java.net.InetAddress;
  */
 public class TcpManagerProxy
 {
-    private final MpscArrayBuffer<Object> commandQueue;
+    private final ArrayBufferWriter<Object> commandQueue;
     private final AtomicBuffer sendBuffer;
     private final MpscRingBufferWriter sendWriter;
+    private final IdGenerator attachIds;
 
-    public TcpManagerProxy(final MpscArrayBuffer<Object> commandQueue, final AtomicBuffer sendBuffer)
+    public TcpManagerProxy(final ArrayBufferWriter<Object> commandQueue, final AtomicBuffer sendBuffer)
+    {
+        this(commandQueue, sendBuffer, commandQueue);
+    }
+
+    /**
+     * Construct a proxy that takes attach IDs from a generator of its own, such as a
+     * {@link org.kaazing.nuklei.concurrent.StripedIdGenerator} shared by the threads attaching.
+     *
+     * @param commandQueue of the {@link TcpManager}
+     * @param sendBuffer of the {@link TcpManager}
+     * @param attachIds to take attach IDs from
+     */
+    public TcpManagerProxy(
+        final ArrayBufferWriter<Object> commandQueue, final AtomicBuffer sendBuffer, final IdGenerator attachIds)
+    {
+        this(commandQueue, sendBuffer, attachIds, WakeupSignal.NULL_SIGNAL);
+    }
+
+    /**
+     * Construct a proxy that raises a signal on each send, such as {@link TcpManager#sendIdler()} so a sender thread
+     * blocked in its selector picks the data up straight away.
+     *
+     * @param commandQueue of the {@link TcpManager}
+     * @param sendBuffer of the {@link TcpManager}
+     * @param attachIds to take attach IDs from
+     * @param sendSignal to raise on each send
+     */
+    public TcpManagerProxy(
+        final ArrayBufferWriter<Object> commandQueue,
+        final AtomicBuffer sendBuffer,
+        final IdGenerator attachIds,
+        final WakeupSignal sendSignal)
     {
         this.commandQueue = commandQueue;
+        this.attachIds = attachIds;
         this.sendBuffer = sendBuffer;
         this.sendWriter = new MpscRingBufferWriter(sendBuffer);
+        sendWriter.wakeupSignal(sendSignal);
     }
 
     /**
@@ -53,7 +90,7 @@ public class TcpManagerProxy
         final InetAddress[] addresses,
         final AtomicBuffer receiveBuffer)
     {
-        final long id = commandQueue.nextId();
+        final long id = attachIds.nextId();
         final TcpLocalAttachCmd cmd = new TcpLocalAttachCmd(port, id, addresses, receiveBuffer);
 
         if (!commandQueue.write(cmd))
@@ -19,10 +19,13 @@ package org.kaazing.nuklei.net;
 import org.kaazing.nuklei.MessagingNukleus;
 import org.kaazing.nuklei.NioSelectorNukleus;
 import org.kaazing.nuklei.Nuklei;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+import org.kaazing.nuklei.Nukleus;
+import org.kaazing.nuklei.concurrent.ArrayBufferReader;
 
 import java.nio.channels.SelectionKey;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,8 +37,10 @@ public class TcpReceiver
     private final MessagingNukleus messagingNukleus;
     private final NioSelectorNukleus selectorNukleus;
     private final Map<Long, TcpConnection> connectionsByIdMap;
+    private final List<TcpConnection> pendingConnections;
+    private final Nukleus receiverNukleus;
 
-    public TcpReceiver(final MpscArrayBuffer<Object> commandQueue, final NioSelectorNukleus selectorNukleus)
+    public TcpReceiver(final ArrayBufferReader<Object> commandQueue, final NioSelectorNukleus selectorNukleus)
     {
         final MessagingNukleus.Builder builder = new MessagingNukleus.Builder()
             .nioSelector(selectorNukleus)
@@ -45,11 +50,72 @@ public class TcpReceiver
 
         messagingNukleus = new MessagingNukleus(builder);
         connectionsByIdMap = new HashMap<>();
+        pendingConnections = new ArrayList<>();
+        receiverNukleus = this::process;
     }
 
     public void launch(final Nuklei nuklei)
     {
-        nuklei.spinUp(messagingNukleus);
+        nuklei.spinUp(receiverNukleus);
+    }
+
+    /**
+     * Take over retrying a connection whose received data found no room in its receive buffer, as the channel may
+     * not be readable again until the peer sends more. Reads are paused until the data is published.
+     *
+     * @param connection with data pending
+     */
+    void onReceivePending(final TcpConnection connection)
+    {
+        pendingConnections.add(connection);
+        readInterest(connection, 0);
+    }
+
+    /**
+     * Forget a connection whose closing has been published.
+     *
+     * @param connection that is closed
+     */
+    void onClosed(final TcpConnection connection)
+    {
+        connectionsByIdMap.remove(connection.id());
+    }
+
+    private int process()
+    {
+        int weight = messagingNukleus.process();
+
+        for (int i = pendingConnections.size() - 1; i >= 0; i--)
+        {
+            final TcpConnection connection = pendingConnections.get(i);
+
+            weight += connection.retryReceive();
+
+            if (!connection.isReceivePending())
+            {
+                // order of retries does not matter, so fill the gap with the last one
+                final int lastIndex = pendingConnections.size() - 1;
+                pendingConnections.set(i, pendingConnections.get(lastIndex));
+                pendingConnections.remove(lastIndex);
+
+                if (!connection.isClosed())
+                {
+                    readInterest(connection, SelectionKey.OP_READ);
+                }
+            }
+        }
+
+        return weight;
+    }
+
+    private void readInterest(final TcpConnection connection, final int ops)
+    {
+        final SelectionKey key = connection.channel().keyFor(selectorNukleus.selector);
+
+        if (null != key && key.isValid())
+        {
+            key.interestOps(ops);
+        }
     }
 
     private void commandHandler(final Object obj)
@@ -60,7 +126,8 @@ public class TcpReceiver
 
             try
             {
-                selectorNukleus.register(connection.channel(), SelectionKey.OP_READ, connection::onReadable);
+                connection.receiver(this);
+                selectorNukleus.register(connection.channel(), SelectionKey.OP_READ, connection);
                 connectionsByIdMap.put(connection.id(), connection);
             }
             catch (final Exception ex)
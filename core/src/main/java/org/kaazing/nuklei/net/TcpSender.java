@@ -20,8 +20,8 @@ import org.kaazing.nuklei.BitUtil;
 import org.kaazing.nuklei.MessagingNukleus;
 import org.kaazing.nuklei.NioSelectorNukleus;
 import org.kaazing.nuklei.Nuklei;
+import org.kaazing.nuklei.concurrent.ArrayBufferReader;
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
-import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
 
 import java.nio.ByteBuffer;
 import java.util.HashMap;
@@ -39,7 +39,7 @@ public class TcpSender
     private final ByteBuffer sendByteBuffer;
 
     public TcpSender(
-        final MpscArrayBuffer<Object> commandQueue,
+        final ArrayBufferReader<Object> commandQueue,
         final AtomicBuffer sendBuffer,
         final NioSelectorNukleus selectorNukleus)
     {
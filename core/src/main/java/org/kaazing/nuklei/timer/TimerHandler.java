@@ -0,0 +1,30 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.timer;
+
+/**
+ * Callback for an expired timer of a {@link TimerWheel}
+ */
+@FunctionalInterface
+public interface TimerHandler
+{
+    /**
+     * Called on the thread processing the {@link TimerWheel} once the deadline of a timer has passed.
+     *
+     * @param timerId of the expired timer, as returned when it was scheduled
+     */
+    void onExpiry(final long timerId);
+}
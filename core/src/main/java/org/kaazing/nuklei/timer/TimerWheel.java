@@ -0,0 +1,341 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.timer;
+
+import org.kaazing.nuklei.Nukleus;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed, hierarchical timer wheel run as a {@link Nukleus}.
+ *
+ * Timers are held in preallocated parallel arrays and linked into circular, doubly linked buckets, so scheduling
+ * and cancelling are O(1) and allocation free once the arrays have grown to the number of pending timers. Each of
+ * the {@link #LEVELS} wheels has {@link #WHEEL_SIZE} buckets and covers {@link #WHEEL_SIZE} times the range of the
+ * one below it. Timers further out than the top level are re-cascaded until they are in range.
+ *
+ * Not thread safe. Timers must be scheduled and cancelled on the thread calling {@link #process()}.
+ */
+public class TimerWheel implements Nukleus
+{
+    /** number of wheels */
+    public static final int LEVELS = 4;
+
+    /** number of buckets per wheel */
+    public static final int WHEEL_SIZE = 256;
+
+    /** default number of timers room is made for up front */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final int WHEEL_BITS = 8;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final long MAX_TICKS = 1L << (WHEEL_BITS * LEVELS);
+    private static final int EXPIRING = LEVELS * WHEEL_SIZE;
+    private static final int SENTINELS = EXPIRING + 1;
+    private static final int NULL_INDEX = -1;
+
+    private final LongSupplier clock;
+    private final long tickNs;
+    private final long startTime;
+
+    private long[] deadlines;
+    private int[] nexts;
+    private int[] prevs;
+    private int[] generations;
+    private TimerHandler[] handlers;
+
+    private long currentTick;
+    private int freeHead;
+    private int timerCount;
+
+    /**
+     * Create a timer wheel driven by {@link System#nanoTime()}.
+     *
+     * @param tickNs resolution of the wheel in nanoseconds
+     */
+    public TimerWheel(final long tickNs)
+    {
+        this(System::nanoTime, tickNs, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create a timer wheel.
+     *
+     * @param clock returning the current time in nanoseconds
+     * @param tickNs resolution of the wheel in nanoseconds
+     * @param initialCapacity number of timers to make room for up front
+     */
+    public TimerWheel(final LongSupplier clock, final long tickNs, final int initialCapacity)
+    {
+        if (tickNs < 1)
+        {
+            throw new IllegalArgumentException("tick must be positive");
+        }
+
+        this.clock = clock;
+        this.tickNs = tickNs;
+        this.startTime = clock.getAsLong();
+
+        final int length = SENTINELS + Math.max(initialCapacity, 1);
+
+        deadlines = new long[length];
+        nexts = new int[length];
+        prevs = new int[length];
+        generations = new int[length];
+        handlers = new TimerHandler[length];
+
+        for (int i = 0; i < SENTINELS; i++)
+        {
+            nexts[i] = i;
+            prevs[i] = i;
+        }
+
+        freeHead = NULL_INDEX;
+        free(SENTINELS, length);
+    }
+
+    /**
+     * Schedule a timer.
+     *
+     * @param deadline time in nanoseconds, as returned by the clock, at or after which the timer expires
+     * @param handler to call on expiry
+     * @return id of the timer, unique for as long as the timer is pending
+     */
+    public long scheduleTimer(final long deadline, final TimerHandler handler)
+    {
+        if (null == handler)
+        {
+            throw new IllegalArgumentException("handler must not be null");
+        }
+
+        if (NULL_INDEX == freeHead)
+        {
+            grow();
+        }
+
+        final int index = freeHead;
+        freeHead = nexts[index];
+
+        final long deadlineTick = (deadline - startTime + tickNs - 1) / tickNs;
+
+        deadlines[index] = Math.max(deadlineTick, currentTick + 1);
+        handlers[index] = handler;
+        timerCount++;
+        insert(index);
+
+        return timerId(index);
+    }
+
+    /**
+     * Cancel a pending timer.
+     *
+     * @param timerId of the timer
+     * @return true if the timer was pending, false if it had already expired or been cancelled
+     */
+    public boolean cancelTimer(final long timerId)
+    {
+        final int index = (int)timerId;
+
+        if (index < SENTINELS || index >= handlers.length ||
+            null == handlers[index] || generations[index] != (int)(timerId >>> 32))
+        {
+            return false;
+        }
+
+        unlink(index);
+        release(index);
+
+        return true;
+    }
+
+    /**
+     * Return number of pending timers.
+     *
+     * @return number of pending timers
+     */
+    public int timerCount()
+    {
+        return timerCount;
+    }
+
+    /**
+     * Expire all timers whose deadline has passed.
+     *
+     * @return number of timers expired
+     */
+    public int process()
+    {
+        final long nowTick = (clock.getAsLong() - startTime) / tickNs;
+        int expired = 0;
+
+        while (currentTick < nowTick)
+        {
+            currentTick++;
+            cascade();
+            expired += expire((int)currentTick & WHEEL_MASK);
+        }
+
+        return expired;
+    }
+
+    private void cascade()
+    {
+        for (int level = 1; level < LEVELS; level++)
+        {
+            final int shift = level * WHEEL_BITS;
+
+            if (0 != (currentTick & ((1L << shift) - 1)))
+            {
+                break;
+            }
+
+            final int bucket = level * WHEEL_SIZE + ((int)(currentTick >>> shift) & WHEEL_MASK);
+
+            for (int index = nexts[bucket]; index != bucket; index = nexts[bucket])
+            {
+                unlink(index);
+                insert(index);
+            }
+        }
+    }
+
+    private int expire(final int bucket)
+    {
+        if (nexts[bucket] == bucket)
+        {
+            return 0;
+        }
+
+        // move the bucket aside so handlers may schedule and cancel freely while it is drained
+        nexts[EXPIRING] = nexts[bucket];
+        prevs[EXPIRING] = prevs[bucket];
+        prevs[nexts[EXPIRING]] = EXPIRING;
+        nexts[prevs[EXPIRING]] = EXPIRING;
+        nexts[bucket] = bucket;
+        prevs[bucket] = bucket;
+
+        int expired = 0;
+
+        try
+        {
+            for (int index = nexts[EXPIRING]; index != EXPIRING; index = nexts[EXPIRING])
+            {
+                final TimerHandler handler = handlers[index];
+                final long timerId = timerId(index);
+
+                unlink(index);
+                release(index);
+                handler.onExpiry(timerId);
+                expired++;
+            }
+        }
+        finally
+        {
+            if (nexts[EXPIRING] != EXPIRING)
+            {
+                restore(bucket);
+            }
+        }
+
+        return expired;
+    }
+
+    // a handler threw, so put the timers it left behind back in front of the bucket and step back a tick to
+    // expire them on the next process
+    private void restore(final int bucket)
+    {
+        final int first = nexts[EXPIRING];
+        final int last = prevs[EXPIRING];
+        final int head = nexts[bucket];
+
+        prevs[first] = bucket;
+        nexts[bucket] = first;
+        nexts[last] = head;
+        prevs[head] = last;
+        nexts[EXPIRING] = EXPIRING;
+        prevs[EXPIRING] = EXPIRING;
+
+        currentTick--;
+    }
+
+    private void insert(final int index)
+    {
+        final long deadlineTick = deadlines[index];
+        final long delta = Math.min(deadlineTick - currentTick, MAX_TICKS - 1);
+        final long tick = currentTick + delta;
+
+        int level = 0;
+        while (delta >= 1L << ((level + 1) * WHEEL_BITS))
+        {
+            level++;
+        }
+
+        final int bucket = level * WHEEL_SIZE + ((int)(tick >>> (level * WHEEL_BITS)) & WHEEL_MASK);
+        final int tail = prevs[bucket];
+
+        nexts[index] = bucket;
+        prevs[index] = tail;
+        nexts[tail] = index;
+        prevs[bucket] = index;
+    }
+
+    private void unlink(final int index)
+    {
+        final int next = nexts[index];
+        final int prev = prevs[index];
+
+        nexts[prev] = next;
+        prevs[next] = prev;
+    }
+
+    private void release(final int index)
+    {
+        handlers[index] = null;
+        generations[index]++;
+        nexts[index] = freeHead;
+        freeHead = index;
+        timerCount--;
+    }
+
+    private long timerId(final int index)
+    {
+        return ((long)generations[index] << 32) | index;
+    }
+
+    private void grow()
+    {
+        final int oldLength = handlers.length;
+        final int newLength = oldLength + (oldLength - SENTINELS);
+
+        deadlines = Arrays.copyOf(deadlines, newLength);
+        nexts = Arrays.copyOf(nexts, newLength);
+        prevs = Arrays.copyOf(prevs, newLength);
+        generations = Arrays.copyOf(generations, newLength);
+        handlers = Arrays.copyOf(handlers, newLength);
+
+        free(oldLength, newLength);
+    }
+
+    private void free(final int fromIndex, final int toIndex)
+    {
+        for (int i = toIndex - 1; i >= fromIndex; i--)
+        {
+            nexts[i] = freeHead;
+            freeHead = i;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class ArrayBufferParkingIdlerTest
+{
+    private static final long LONG_TIMEOUT_NS = 60L * 1000 * 1000 * 1000;
+
+    private final MpscArrayBuffer<Object> buffer = new MpscArrayBuffer<>(16);
+    private final ArrayBufferParkingIdler idler = new ArrayBufferParkingIdler(buffer, 1, LONG_TIMEOUT_NS);
+
+    @Test(timeout = 1000)
+    public void shouldNotParkWhenMessagesPending()
+    {
+        buffer.write(1);
+
+        idler.idle(0);
+    }
+
+    @Test(timeout = 1000)
+    public void shouldNotParkWhileWorking()
+    {
+        idler.idle(1);
+    }
+
+    @Test(timeout = 1000)
+    public void shouldBeUnparkedByWriter() throws Exception
+    {
+        final int[] messagesRead = new int[1];
+        final Thread thread = new Thread(() ->
+        {
+            idler.idle(0);
+            messagesRead[0] = buffer.read((message) -> { }, 1);
+        });
+
+        thread.start();
+
+        while (Thread.State.TIMED_WAITING != thread.getState())
+        {
+            Thread.sleep(1);
+        }
+
+        buffer.write(1);
+        thread.join();
+
+        assertThat(messagesRead[0], is(1));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class BackoffIdlerTest
+{
+    private static final int MAX_SPINS = 2;
+    private static final int MAX_YIELDS = 2;
+    private static final long MIN_PARK_PERIOD_NS = 1;
+    private static final long MAX_PARK_PERIOD_NS = 4;
+
+    private final BackoffIdler idler = new BackoffIdler(MAX_SPINS, MAX_YIELDS, MIN_PARK_PERIOD_NS, MAX_PARK_PERIOD_NS);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenMaxParkPeriodLessThanMin()
+    {
+        new BackoffIdler(MAX_SPINS, MAX_YIELDS, MAX_PARK_PERIOD_NS, MIN_PARK_PERIOD_NS);
+    }
+
+    @Test
+    public void shouldStartNotIdle()
+    {
+        assertThat(idler.state(), is(BackoffIdler.State.NOT_IDLE));
+    }
+
+    @Test
+    public void shouldSpinThenYieldThenPark()
+    {
+        idle(MAX_SPINS);
+        assertThat(idler.state(), is(BackoffIdler.State.SPINNING));
+
+        idle(MAX_YIELDS);
+        assertThat(idler.state(), is(BackoffIdler.State.YIELDING));
+
+        idle(1);
+        assertThat(idler.state(), is(BackoffIdler.State.PARKING));
+    }
+
+    @Test
+    public void shouldDoubleParkPeriodUpToMax()
+    {
+        idle(MAX_SPINS + MAX_YIELDS + 1);
+        assertThat(idler.parkPeriodNs(), is(2 * MIN_PARK_PERIOD_NS));
+
+        idle(1);
+        assertThat(idler.parkPeriodNs(), is(MAX_PARK_PERIOD_NS));
+
+        idle(1);
+        assertThat(idler.parkPeriodNs(), is(MAX_PARK_PERIOD_NS));
+    }
+
+    @Test
+    public void shouldResetWhenWorkDone()
+    {
+        idle(MAX_SPINS + MAX_YIELDS + 3);
+
+        idler.idle(1);
+        assertThat(idler.state(), is(BackoffIdler.State.NOT_IDLE));
+
+        idle(MAX_SPINS);
+        assertThat(idler.state(), is(BackoffIdler.State.SPINNING));
+
+        idle(MAX_YIELDS + 1);
+        assertThat(idler.state(), is(BackoffIdler.State.PARKING));
+        assertThat(idler.parkPeriodNs(), is(2 * MIN_PARK_PERIOD_NS));
+    }
+
+    private void idle(final int times)
+    {
+        for (int i = 0; i < times; i++)
+        {
+            idler.idle(0);
+        }
+    }
+}
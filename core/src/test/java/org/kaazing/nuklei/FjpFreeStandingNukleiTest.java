@@ -0,0 +1,83 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test the adaptive quantum of FjpFreeStandingNuklei, driving a single execution at a time
+ */
+public class FjpFreeStandingNukleiTest
+{
+    private static final int WEIGHT = 3;
+
+    private final AtomicInteger workLeft = new AtomicInteger();
+    private final Nukleus nukleus = () -> (workLeft.getAndDecrement() > 0) ? WEIGHT : 0;
+    private final FjpFreeStandingNuklei.Wrapper wrapper =
+        new FjpFreeStandingNuklei.Wrapper(nukleus, ForkJoinPool.commonPool(), (weight) -> { }, true);
+
+    @Test
+    public void shouldDoubleQuantumWhileWorkIsPending()
+    {
+        workLeft.set(Integer.MAX_VALUE);
+
+        assertThat(wrapper.quantum(), is(FjpFreeStandingNuklei.MIN_QUANTUM));
+        assertThat(wrapper.processQuantum(), is(WEIGHT));
+        assertThat(wrapper.quantum(), is(2));
+        assertThat(wrapper.processQuantum(), is(2 * WEIGHT));
+        assertThat(wrapper.quantum(), is(4));
+        assertThat(wrapper.processQuantum(), is(4 * WEIGHT));
+        assertThat(wrapper.quantum(), is(8));
+    }
+
+    @Test
+    public void shouldSumWeightsWhenWorkRunsOutWithinQuantum()
+    {
+        workLeft.set(Integer.MAX_VALUE);
+        wrapper.processQuantum();
+        wrapper.processQuantum();
+        wrapper.processQuantum();
+
+        workLeft.set(5);
+
+        assertThat(wrapper.processQuantum(), is(5 * WEIGHT));
+        assertThat(wrapper.quantum(), is(8));
+    }
+
+    @Test
+    public void shouldHalveQuantumWhenIdleOnFirstCall()
+    {
+        workLeft.set(Integer.MAX_VALUE);
+        wrapper.processQuantum();
+        wrapper.processQuantum();
+        wrapper.processQuantum();
+
+        workLeft.set(0);
+
+        assertThat(wrapper.processQuantum(), is(0));
+        assertThat(wrapper.quantum(), is(4));
+        assertThat(wrapper.processQuantum(), is(0));
+        assertThat(wrapper.processQuantum(), is(0));
+        assertThat(wrapper.processQuantum(), is(0));
+        assertThat(wrapper.quantum(), is(FjpFreeStandingNuklei.MIN_QUANTUM));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class MessagingNukleusTest
+{
+    private static final int CAPACITY = 4 * MessagingNukleus.MAX_ARRAY_BUFFER_BATCH;
+
+    private final MpscArrayBuffer<Object> buffer = new MpscArrayBuffer<>(CAPACITY);
+    private final List<Object> received = new ArrayList<>();
+
+    @Test
+    public void shouldDrainMoreThanOneBatchWhenLimitIsLarge()
+    {
+        final MessagingNukleus nukleus = new MessagingNukleus(
+            new MessagingNukleus.Builder().mpscArrayBuffer(buffer, received::add, Integer.MAX_VALUE));
+        final int count = 2 * MessagingNukleus.MAX_ARRAY_BUFFER_BATCH + 1;
+
+        IntStream.range(0, count).forEach(buffer::write);
+
+        assertThat(nukleus.process(), is(count));
+        assertThat(received.size(), is(count));
+        IntStream.range(0, count).forEach((i) -> assertThat(received.get(i), is(i)));
+        assertThat(nukleus.process(), is(0));
+    }
+
+    @Test
+    public void shouldEnforceArrayBufferReadLimit()
+    {
+        final MessagingNukleus nukleus = new MessagingNukleus(
+            new MessagingNukleus.Builder().mpscArrayBuffer(buffer, received::add, 3));
+
+        IntStream.range(0, 5).forEach(buffer::write);
+
+        assertThat(nukleus.process(), is(3));
+        assertThat(nukleus.process(), is(2));
+        assertThat(received.size(), is(5));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.channels.Selector;
+
+public class NioSelectorIdlerTest
+{
+    private static final long LONG_TIMEOUT_MS = 60_000;
+
+    private final Selector selector;
+    private final NioSelectorIdler idler;
+
+    public NioSelectorIdlerTest() throws Exception
+    {
+        selector = Selector.open();
+        idler = new NioSelectorIdler(selector, 1, LONG_TIMEOUT_MS);
+    }
+
+    @After
+    public void closeSelector() throws Exception
+    {
+        selector.close();
+    }
+
+    @Test(timeout = 1000)
+    public void shouldNotBlockWhenSignalledAfterParking()
+    {
+        idler.idle(0);  // marks parked, does not block
+        idler.signal();
+        idler.idle(0);  // wakeup already pending, returns immediately
+    }
+
+    @Test(timeout = 1000)
+    public void shouldWakeBlockedSelectWhenSignalled() throws Exception
+    {
+        final Thread thread = new Thread(() ->
+        {
+            idler.idle(0);
+            idler.idle(0);
+        });
+
+        thread.start();
+
+        while (thread.isAlive())
+        {
+            Thread.sleep(10);
+            idler.signal();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.theories.DataPoints;
+import org.junit.experimental.theories.Theories;
+import org.junit.experimental.theories.Theory;
+import org.junit.runner.RunWith;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeTrue;
+
+@RunWith(Theories.class)
+public class NioSelectorNukleusTest
+{
+    @DataPoints
+    public static final boolean[] OPTIMIZE_SELECTED_KEYS = { false, true };
+
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel acceptedChannel;
+    private Selector selector;
+
+    @Before
+    public void connect() throws Exception
+    {
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress("127.0.0.1", 0));
+        clientChannel = SocketChannel.open(serverChannel.getLocalAddress());
+        clientChannel.configureBlocking(false);
+        acceptedChannel = serverChannel.accept();
+        selector = Selector.open();
+    }
+
+    @After
+    public void close() throws Exception
+    {
+        selector.close();
+        acceptedChannel.close();
+        clientChannel.close();
+        serverChannel.close();
+    }
+
+    @Theory
+    @Test(timeout = 1000)
+    public void shouldDispatchAllReadyOpsOfKeyInOnePass(final boolean optimizeSelectedKeys) throws Exception
+    {
+        final NioSelectorNukleus nukleus = new NioSelectorNukleus(selector, optimizeSelectedKeys);
+
+        assumeSelectedKeysMode(nukleus, optimizeSelectedKeys);
+        final int[] reads = { 0 };
+        int weight;
+
+        nukleus.register(clientChannel, SelectionKey.OP_READ, () -> ++reads[0]);
+        nukleus.register(clientChannel, SelectionKey.OP_WRITE, () -> 1);
+        acceptedChannel.write(ByteBuffer.wrap(new byte[] { 1 }));
+
+        do
+        {
+            weight = nukleus.process();
+        }
+        while (0 == reads[0]);
+
+        assertThat(weight, is(2));
+    }
+
+    @Theory
+    @Test(timeout = 1000)
+    public void shouldDispatchToTypedHandler(final boolean optimizeSelectedKeys) throws Exception
+    {
+        final NioSelectorNukleus nukleus = new NioSelectorNukleus(selector, optimizeSelectedKeys);
+
+        assumeSelectedKeysMode(nukleus, optimizeSelectedKeys);
+        final int[] reads = { 0 };
+        final int[] writes = { 0 };
+        final SelectionHandler handler = new SelectionHandler()
+        {
+            public int onReadable()
+            {
+                return ++reads[0];
+            }
+
+            public int onWritable()
+            {
+                return ++writes[0];
+            }
+        };
+
+        nukleus.register(clientChannel, SelectionKey.OP_READ | SelectionKey.OP_WRITE, handler);
+        acceptedChannel.write(ByteBuffer.wrap(new byte[] { 1 }));
+
+        while (0 == reads[0])
+        {
+            nukleus.process();
+        }
+
+        assertThat(clientChannel.keyFor(selector).attachment(), is(handler));
+        assertThat(writes[0] > 0, is(true));
+
+        nukleus.cancel(clientChannel, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        assertThat(clientChannel.keyFor(selector).isValid(), is(false));
+    }
+
+    @Theory
+    @Test(timeout = 1000)
+    public void shouldDispatchKeySelectedByIdlerOncePerPass(final boolean optimizeSelectedKeys) throws Exception
+    {
+        final NioSelectorNukleus nukleus = new NioSelectorNukleus(selector, optimizeSelectedKeys);
+        final NioSelectorIdler idler = new NioSelectorIdler(selector, 1, 1000);
+        final int[] reads = { 0 };
+
+        assumeSelectedKeysMode(nukleus, optimizeSelectedKeys);
+
+        nukleus.register(clientChannel, SelectionKey.OP_READ, () -> ++reads[0]);
+        acceptedChannel.write(ByteBuffer.wrap(new byte[] { 1 }));
+
+        idler.idle(0);  // marks parked
+        idler.idle(0);  // selects the readable key
+
+        assertThat(nukleus.process(), is(1));
+        assertThat(reads[0], is(1));
+    }
+
+    // the selected-key set can only be replaced where the JDK allows it, so the optimized case is skipped elsewhere
+    private static void assumeSelectedKeysMode(final NioSelectorNukleus nukleus, final boolean optimizeSelectedKeys)
+    {
+        if (optimizeSelectedKeys)
+        {
+            assumeTrue(nukleus.isSelectedKeySetOptimized());
+        }
+        else
+        {
+            assertThat(nukleus.isSelectedKeySetOptimized(), is(false));
+        }
+    }
+}
@@ -15,8 +15,250 @@
  */
 package org.kaazing.nuklei;
 
+import org.junit.After;
+import org.junit.Test;
+import org.kaazing.nuklei.concurrent.MpscArrayBuffer;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
 /**
  */
 public class NukleiTest
 {
+    private DedicatedNuklei dedicatedNuklei;
+    private DedicatedNuklei otherNuklei;
+    private NukleiGroup nukleiGroup;
+    private FjpDedicatedNuklei fjpNuklei;
+
+    @After
+    public void stopNuklei()
+    {
+        if (null != dedicatedNuklei)
+        {
+            dedicatedNuklei.stop();
+        }
+
+        if (null != otherNuklei)
+        {
+            otherNuklei.stop();
+        }
+
+        if (null != nukleiGroup)
+        {
+            nukleiGroup.stop();
+        }
+
+        if (null != fjpNuklei)
+        {
+            fjpNuklei.stop();
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void shouldGiveMoreIterationsToNukleusReportingWorkWhenWeighted() throws Exception
+    {
+        final long[] counts = new long[2];
+
+        dedicatedNuklei = new DedicatedNuklei("weighted", new NoOpIdler(), DedicatedNuklei.Scheduling.WEIGHTED);
+        dedicatedNuklei.spinUp(() ->
+        {
+            counts[0]++;
+            return 1;
+        });
+        dedicatedNuklei.spinUp(() ->
+        {
+            counts[1]++;
+            return 0;
+        });
+
+        Thread.sleep(100);
+        dedicatedNuklei.stop();
+
+        assertThat(counts[1], greaterThan(0L));
+        assertThat(counts[0], greaterThan(DedicatedNuklei.MAX_BURST * counts[1]));
+    }
+
+    @Test(timeout = 1000)
+    public void shouldPollSkippedNukleusAfterEachIdlePassWhenWeighted() throws Exception
+    {
+        final long[] processCount = new long[1];
+        final long[] idleCount = new long[1];
+
+        dedicatedNuklei = new DedicatedNuklei("weighted", (weight) ->
+        {
+            if (0 == weight && processCount[0] > 0)
+            {
+                idleCount[0]++;
+            }
+        }, DedicatedNuklei.Scheduling.WEIGHTED);
+        dedicatedNuklei.spinUp(() ->
+        {
+            processCount[0]++;
+            return 0;
+        });
+
+        Thread.sleep(100);
+        dedicatedNuklei.stop();
+
+        // at most every other idle pass skips the nukleus
+        assertThat(2 * processCount[0] + 2, greaterThanOrEqualTo(idleCount[0]));
+    }
+
+    @Test(timeout = 1000)
+    public void shouldMigrateNukleusToOtherNuklei() throws Exception
+    {
+        final Nukleus nukleus = () -> 0;
+
+        dedicatedNuklei = new DedicatedNuklei("source");
+        otherNuklei = new DedicatedNuklei("target");
+        dedicatedNuklei.spinUp(nukleus);
+        dedicatedNuklei.migrate(nukleus, otherNuklei);
+
+        while (otherNuklei.busyCalls(nukleus) == -1)
+        {
+            Thread.yield();
+        }
+
+        assertThat(dedicatedNuklei.busyCalls(nukleus), is(-1L));
+        assertThat(dedicatedNuklei.nukleusCount(), is(0));
+        assertThat(otherNuklei.nukleusCount(), is(1));
+    }
+
+    @Test(timeout = 2000)
+    public void shouldMoveNukleusOffSaturatedThread() throws Exception
+    {
+        final AtomicReferenceArray<Thread> lastThreads = new AtomicReferenceArray<>(2);
+
+        nukleiGroup = new NukleiGroup("group", 2, NoOpIdler::new, 0);
+        nukleiGroup.spinUp(() ->
+        {
+            lastThreads.set(0, Thread.currentThread());
+            return 1;
+        });
+        nukleiGroup.spinUp(() -> 0);
+        nukleiGroup.spinUp(() ->
+        {
+            lastThreads.set(1, Thread.currentThread());
+            return 1;
+        });
+
+        while (!nukleiGroup.rebalance())
+        {
+            Thread.sleep(10);
+        }
+
+        while (lastThreads.get(0) == lastThreads.get(1))
+        {
+            Thread.sleep(10);
+        }
+
+        assertThat(lastThreads.get(0), not(lastThreads.get(1)));
+    }
+
+    @Test(timeout = 2000)
+    public void shouldNotLandNukleusSpunDownWhileMigrating() throws Exception
+    {
+        final AtomicBoolean rebalancing = new AtomicBoolean();
+        final AtomicBoolean moved = new AtomicBoolean();
+        final AtomicBoolean spunDown = new AtomicBoolean();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger idleCalls = new AtomicInteger();
+
+        // rebalancing from within a pass keeps the migration queued until the pass is over
+        final Nukleus blocker = () ->
+        {
+            calls.incrementAndGet();
+            if (rebalancing.get() && !moved.get() && nukleiGroup.rebalance())
+            {
+                moved.set(true);
+                while (!spunDown.get())
+                {
+                    Thread.yield();
+                }
+            }
+            return 1;
+        };
+        final Nukleus other = () ->
+        {
+            calls.incrementAndGet();
+            return 1;
+        };
+
+        // wait for each nukleus to land so the blocker and the other share a thread
+        nukleiGroup = new NukleiGroup("group", 2, NoOpIdler::new, 0);
+        nukleiGroup.spinUp(blocker);
+        while (0 == calls.get())
+        {
+            Thread.yield();
+        }
+
+        nukleiGroup.spinUp(() ->
+        {
+            idleCalls.incrementAndGet();
+            return 0;
+        });
+        while (0 == idleCalls.get())
+        {
+            Thread.yield();
+        }
+
+        nukleiGroup.spinUp(other);
+        rebalancing.set(true);
+
+        while (!moved.get())
+        {
+            Thread.sleep(10);
+        }
+
+        nukleiGroup.spinDown(blocker);
+        nukleiGroup.spinDown(other);
+        Thread.sleep(50);
+        spunDown.set(true);
+
+        Thread.sleep(50);
+        final int spunDownCalls = calls.get();
+        Thread.sleep(50);
+
+        assertThat(calls.get(), is(spunDownCalls));
+    }
+
+    @Test(timeout = 2000)
+    public void shouldOnlyProcessSignalledNukleusWhenSignalled() throws Exception
+    {
+        final MpscArrayBuffer<Integer> buffer = new MpscArrayBuffer<>(16);
+        final AtomicInteger received = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+
+        fjpNuklei = new FjpDedicatedNuklei(ForkJoinPool.commonPool());
+        buffer.wakeupSignal(fjpNuklei.spinUpSignalled(() ->
+        {
+            calls.incrementAndGet();
+            return buffer.read((message) -> received.incrementAndGet(), 10);
+        }));
+
+        for (int i = 0; i < 3; i++)
+        {
+            assertThat(buffer.write(i), is(true));
+
+            while (received.get() != i + 1)
+            {
+                Thread.yield();
+            }
+        }
+
+        Thread.sleep(50);
+        final int idleCalls = calls.get();
+        Thread.sleep(50);
+
+        assertThat(calls.get(), is(idleCalls));
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assume.assumeNotNull;
+import static org.mockito.Mockito.mock;
+
+public class SelectedKeySetTest
+{
+    private final SelectedKeySet selectedKeySet = new SelectedKeySet();
+    private final SelectionKey key1 = mock(SelectionKey.class);
+    private final SelectionKey key2 = mock(SelectionKey.class);
+
+    @Test
+    public void shouldAddAndIterateInOrder()
+    {
+        assertThat(selectedKeySet.add(key1), is(true));
+        assertThat(selectedKeySet.add(key2), is(true));
+
+        final List<SelectionKey> iterated = new ArrayList<>();
+        selectedKeySet.forEach(iterated::add);
+
+        assertThat(selectedKeySet.size(), is(2));
+        assertThat(selectedKeySet.key(0), is(key1));
+        assertThat(selectedKeySet.key(1), is(key2));
+        assertThat(iterated, contains(key1, key2));
+    }
+
+    @Test
+    public void shouldNotAddNullKey()
+    {
+        assertThat(selectedKeySet.add(null), is(false));
+        assertThat(selectedKeySet.size(), is(0));
+    }
+
+    @Test
+    public void shouldGrowBeyondInitialCapacity()
+    {
+        final int count = 3000;
+
+        for (int i = 0; i < count; i++)
+        {
+            selectedKeySet.add((0 == (i & 1)) ? key1 : key2);
+        }
+
+        assertThat(selectedKeySet.size(), is(count));
+        assertThat(selectedKeySet.key(count - 2), is(key1));
+        assertThat(selectedKeySet.key(count - 1), is(key2));
+    }
+
+    @Test
+    public void shouldBeEmptyAfterReset()
+    {
+        selectedKeySet.add(key1);
+        selectedKeySet.add(key2);
+        selectedKeySet.reset();
+
+        assertThat(selectedKeySet.size(), is(0));
+        assertThat(selectedKeySet.iterator().hasNext(), is(false));
+
+        selectedKeySet.add(key2);
+
+        assertThat(selectedKeySet.key(0), is(key2));
+    }
+
+    @Test
+    public void shouldBeEmptyAfterClear()
+    {
+        selectedKeySet.add(key1);
+        selectedKeySet.clear();
+
+        assertThat(selectedKeySet.size(), is(0));
+    }
+
+    @Test
+    public void shouldNotContainOrRemoveKeys()
+    {
+        selectedKeySet.add(key1);
+
+        assertThat(selectedKeySet.contains(key1), is(false));
+        assertThat(selectedKeySet.remove(key1), is(false));
+        assertThat(selectedKeySet.size(), is(1));
+    }
+
+    @Test
+    public void shouldAddKeyTwiceWhenSelectedAgainBeforeReset()
+    {
+        selectedKeySet.add(key1);
+        selectedKeySet.add(key1);
+
+        assertThat(selectedKeySet.size(), is(2));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void shouldThrowExceptionWhenIteratingPastEnd()
+    {
+        final Iterator<SelectionKey> iterator = selectedKeySet.iterator();
+
+        iterator.next();
+    }
+
+    @Test
+    public void shouldInstallAsSelectedKeysOfSelector() throws Exception
+    {
+        try (final Selector selector = Selector.open())
+        {
+            final SelectedKeySet installed = SelectedKeySet.install(selector);
+
+            assumeNotNull(installed);
+            assertThat(selector.selectedKeys(), sameInstance((Object)installed));
+        }
+    }
+}
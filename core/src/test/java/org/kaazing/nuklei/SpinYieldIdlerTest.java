@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+public class SpinYieldIdlerTest
+{
+    private static final int MAX_SPINS = 3;
+
+    private final SpinYieldIdler idler = new SpinYieldIdler(MAX_SPINS);
+
+    @Test
+    public void shouldSpinUpToMaxThenKeepYielding()
+    {
+        for (int i = 1; i <= MAX_SPINS + 2; i++)
+        {
+            idler.idle(0);
+            assertThat(idler.spins(), is(Math.min(i, MAX_SPINS)));
+        }
+    }
+
+    @Test
+    public void shouldResetWhenWorkDone()
+    {
+        idler.idle(0);
+        idler.idle(0);
+        idler.idle(1);
+
+        assertThat(idler.spins(), is(0));
+    }
+}
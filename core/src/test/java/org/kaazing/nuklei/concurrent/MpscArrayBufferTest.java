@@ -221,4 +221,49 @@ public class MpscArrayBufferTest
 
         fail("should not reach here");
     }
+
+    @Theory
+    public void shouldDrainWrittenMessagesIntoBatch(final int capacity)
+    {
+        buffer = new MpscArrayBuffer<>(capacity);
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+
+        final Integer[] batch = new Integer[capacity];
+
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(capacity));
+        IntStream.range(0, capacity).forEach((i) -> assertThat(batch[i], is(i)));
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(0));
+    }
+
+    @Theory
+    public void shouldEnforceDrainLimitAndBatchLength(final int capacity)
+    {
+        buffer = new MpscArrayBuffer<>(capacity);
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+
+        final Integer[] batch = new Integer[capacity];
+
+        assertThat(buffer.drainTo(batch, 1), is(1));
+        assertThat(buffer.drainTo(new Integer[capacity - 1], Integer.MAX_VALUE), is(capacity - 1));
+        assertThat(batch[0], is(0));
+    }
+
+    @Theory
+    public void shouldWriteAgainAfterDrainOnWrap(final int capacity)
+    {
+        buffer = new MpscArrayBuffer<>(capacity);
+
+        final Integer[] batch = new Integer[capacity];
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+        assertThat(buffer.drainTo(batch, capacity - 1), is(capacity - 1));
+
+        IntStream.range(0, capacity - 1).forEach((i) -> assertTrue(buffer.write(capacity + i)));
+        assertFalse(buffer.write(-1));
+
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(capacity));
+        IntStream.range(0, capacity).forEach((i) -> assertThat(batch[i], is(capacity - 1 + i)));
+    }
 }
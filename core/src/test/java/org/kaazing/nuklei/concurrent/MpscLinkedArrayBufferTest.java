@@ -0,0 +1,188 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test MpscLinkedArrayBuffer growing and recycling chunks
+ */
+public class MpscLinkedArrayBufferTest
+{
+    private static final int CHUNK_CAPACITY = 4;
+
+    private final MpscLinkedArrayBuffer<Integer> buffer = new MpscLinkedArrayBuffer<>(CHUNK_CAPACITY);
+    private final List<Integer> read = new ArrayList<>();
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenChunkCapacityNotPowerOfTwo()
+    {
+        new MpscLinkedArrayBuffer<Integer>(7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenMessageIsNull()
+    {
+        buffer.write(null);
+    }
+
+    @Test
+    public void shouldWriteBeyondChunkCapacity()
+    {
+        IntStream.range(0, 3 * CHUNK_CAPACITY + 1).forEach((i) -> assertTrue(buffer.write(i)));
+
+        assertThat(buffer.read(read::add, Integer.MAX_VALUE), is(3 * CHUNK_CAPACITY + 1));
+        assertThat(read.size(), is(3 * CHUNK_CAPACITY + 1));
+        IntStream.range(0, read.size()).forEach((i) -> assertThat(read.get(i), is(i)));
+        assertThat(buffer.read(read::add, Integer.MAX_VALUE), is(0));
+    }
+
+    @Test
+    public void shouldEnforceReadLimitAcrossChunks()
+    {
+        IntStream.range(0, 2 * CHUNK_CAPACITY).forEach((i) -> assertTrue(buffer.write(i)));
+
+        assertThat(buffer.read(read::add, CHUNK_CAPACITY), is(CHUNK_CAPACITY));
+        assertThat(buffer.read(read::add, 1), is(1));
+        assertThat(read.get(CHUNK_CAPACITY), is(CHUNK_CAPACITY));
+    }
+
+    @Test
+    public void shouldKeepOrderWhenChunksAreRecycled()
+    {
+        for (int i = 0; i < 10 * CHUNK_CAPACITY; i++)
+        {
+            assertTrue(buffer.write(i));
+
+            if (1 == i % 3)
+            {
+                buffer.read(read::add, Integer.MAX_VALUE);
+            }
+        }
+
+        buffer.read(read::add, Integer.MAX_VALUE);
+
+        assertThat(read.size(), is(10 * CHUNK_CAPACITY));
+        IntStream.range(0, read.size()).forEach((i) -> assertThat(read.get(i), is(i)));
+    }
+
+    @Test
+    public void shouldDrainIntoBatch()
+    {
+        IntStream.range(0, CHUNK_CAPACITY + 2).forEach((i) -> assertTrue(buffer.write(i)));
+
+        final Integer[] batch = new Integer[3];
+
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(3));
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(3));
+        assertThat(batch, is(new Integer[] { 3, 4, 5 }));
+    }
+
+    @Test
+    public void shouldDrainAcrossChunksAndKeepOrderWhenRecycled()
+    {
+        final Integer[] batch = new Integer[2 * CHUNK_CAPACITY + 1];
+
+        for (int i = 0; i < 10 * CHUNK_CAPACITY; i++)
+        {
+            assertTrue(buffer.write(i));
+
+            if (2 == i % 7)
+            {
+                final int drained = buffer.drainTo(batch, Integer.MAX_VALUE);
+
+                IntStream.range(0, drained).forEach((j) -> read.add(batch[j]));
+            }
+        }
+
+        final int drained = buffer.drainTo(batch, 2);
+
+        IntStream.range(0, drained).forEach((j) -> read.add(batch[j]));
+        buffer.read(read::add, Integer.MAX_VALUE);
+
+        assertThat(drained, is(2));
+        assertThat(read.size(), is(10 * CHUNK_CAPACITY));
+        IntStream.range(0, read.size()).forEach((i) -> assertThat(read.get(i), is(i)));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldReadAllMessagesFromConcurrentWriters() throws Exception
+    {
+        final int numWriters = 2;
+        final int numMessagesPerWriter = 100 * 1000;
+        final CyclicBarrier goBarrier = new CyclicBarrier(numWriters);
+        final int[] lastSeen = { -1, -1 };
+        final Thread[] threads = new Thread[numWriters];
+
+        for (int i = 0; i < numWriters; i++)
+        {
+            final int writer = i;
+
+            threads[i] = new Thread(() ->
+            {
+                try
+                {
+                    goBarrier.await();
+                }
+                catch (final Exception ex)
+                {
+                }
+
+                for (int m = 0; m < numMessagesPerWriter; m++)
+                {
+                    buffer.write(writer * numMessagesPerWriter + m);
+                }
+            });
+            threads[i].start();
+        }
+
+        final List<Integer> outOfOrder = new ArrayList<>();
+        int messagesRead = 0;
+
+        while (messagesRead < numWriters * numMessagesPerWriter)
+        {
+            messagesRead += buffer.read((message) ->
+            {
+                final int writer = message / numMessagesPerWriter;
+
+                if (message % numMessagesPerWriter != lastSeen[writer] + 1)
+                {
+                    outOfOrder.add(message);
+                }
+
+                lastSeen[writer] = message % numMessagesPerWriter;
+            }, Integer.MAX_VALUE);
+        }
+
+        for (final Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        assertThat(outOfOrder.size(), is(0));
+        assertThat(buffer.read(read::add, Integer.MAX_VALUE), is(0));
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.junit.Test;
+import org.junit.experimental.theories.DataPoint;
+import org.junit.experimental.theories.Theories;
+import org.junit.experimental.theories.Theory;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test MpscLongArrayBuffer in isolation
+ */
+@RunWith(Theories.class)
+public class MpscLongArrayBufferTest
+{
+    @DataPoint
+    public static final int CAPACITY_2 = 2;
+
+    @DataPoint
+    public static final int CAPACITY_8 = 8;
+
+    private MpscLongArrayBuffer buffer;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenCapacityNotPowerOfTwo()
+    {
+        buffer = new MpscLongArrayBuffer(7);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldThrowExceptionWhenMessageIsEmptyValue()
+    {
+        buffer = new MpscLongArrayBuffer(2, -1L);
+
+        buffer.write(-1L);
+    }
+
+    @Test
+    public void shouldWriteZeroWithDefaultEmptyValue()
+    {
+        buffer = new MpscLongArrayBuffer(2);
+
+        final List<Long> read = new ArrayList<>();
+
+        assertTrue(buffer.write(0L));
+        assertThat(buffer.read(read::add, Integer.MAX_VALUE), is(1));
+        assertThat(read, contains(0L));
+    }
+
+    @Theory
+    public void shouldNotWriteWhenCapacityNotAvailableAfterWrap(final int capacity)
+    {
+        buffer = new MpscLongArrayBuffer(capacity);
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+
+        assertThat(buffer.read((value) -> {}, Integer.MAX_VALUE), is(capacity));
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+
+        assertFalse(buffer.write(capacity));
+    }
+
+    @Theory
+    public void shouldReadInOrderWithLimit(final int capacity)
+    {
+        buffer = new MpscLongArrayBuffer(capacity);
+
+        final List<Long> read = new ArrayList<>();
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(Long.MAX_VALUE - i)));
+
+        assertThat(buffer.read(read::add, 1), is(1));
+        assertThat(buffer.read(read::add, Integer.MAX_VALUE), is(capacity - 1));
+        assertThat(read.size(), is(capacity));
+        IntStream.range(0, capacity).forEach((i) -> assertThat(read.get(i), is(Long.MAX_VALUE - i)));
+    }
+
+    @Theory
+    public void shouldDrainWrittenMessagesIntoBatch(final int capacity)
+    {
+        buffer = new MpscLongArrayBuffer(capacity);
+
+        final long[] batch = new long[capacity];
+
+        IntStream.range(0, capacity).forEach((i) -> assertTrue(buffer.write(i)));
+
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(capacity));
+        IntStream.range(0, capacity).forEach((i) -> assertThat(batch[i], is((long)i)));
+        assertThat(buffer.drainTo(batch, Integer.MAX_VALUE), is(0));
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test StripedIdGenerator hands out unique IDs in blocks
+ */
+public class StripedIdGeneratorTest
+{
+    private static final int BLOCK_SIZE = 4;
+
+    @Test
+    public void shouldStartAtZeroAndCountUpWithinThread()
+    {
+        final StripedIdGenerator generator = new StripedIdGenerator(BLOCK_SIZE, IdLayout.SEQUENCE);
+
+        IntStream.range(0, 3 * BLOCK_SIZE).forEach((i) -> assertThat(generator.nextId(), is((long)i)));
+    }
+
+    @Test
+    public void shouldTakeBlocksFromSharedCounter() throws Exception
+    {
+        final AtomicBuffer buffer = new AtomicBuffer(new byte[64]);
+        final StripedIdGenerator generator = new StripedIdGenerator(buffer, 8, BLOCK_SIZE, IdLayout.SEQUENCE);
+
+        assertThat(generator.nextId(), is(0L));
+
+        final long[] otherThreadId = new long[1];
+        final Thread thread = new Thread(() -> otherThreadId[0] = generator.nextId());
+
+        thread.start();
+        thread.join();
+
+        assertThat(otherThreadId[0], is((long)BLOCK_SIZE));
+        assertThat(generator.nextId(), is(1L));
+        assertThat(buffer.getLong(8), is(2L * BLOCK_SIZE));
+    }
+
+    @Test
+    public void shouldComposeNodeIdLayout()
+    {
+        final StripedIdGenerator generator = new StripedIdGenerator(BLOCK_SIZE, new NodeIdLayout(5, 8));
+
+        assertThat(generator.nextId(), is(5L << 55));
+        assertThat(generator.nextId(), is((5L << 55) | 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNodeIdOutOfRange()
+    {
+        new NodeIdLayout(256, 8);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowWhenNodeIdLayoutExhausted()
+    {
+        new NodeIdLayout(1, 31).id(1L << 32);
+    }
+
+    @Test(timeout = 10000)
+    public void shouldGenerateUniqueIdsFromConcurrentThreads() throws Exception
+    {
+        final int numThreads = 4;
+        final int numIds = 10 * 1000;
+        final StripedIdGenerator generator = new StripedIdGenerator(BLOCK_SIZE, IdLayout.SEQUENCE);
+        final CyclicBarrier goBarrier = new CyclicBarrier(numThreads);
+        final long[][] ids = new long[numThreads][numIds];
+        final Thread[] threads = new Thread[numThreads];
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            final long[] threadIds = ids[i];
+
+            threads[i] = new Thread(() ->
+            {
+                try
+                {
+                    goBarrier.await();
+                }
+                catch (final Exception ex)
+                {
+                }
+
+                IntStream.range(0, numIds).forEach((j) -> threadIds[j] = generator.nextId());
+            });
+            threads[i].start();
+        }
+
+        final Set<Long> unique = new HashSet<>();
+
+        for (int i = 0; i < numThreads; i++)
+        {
+            threads[i].join();
+
+            for (final long id : ids[i])
+            {
+                unique.add(id);
+            }
+        }
+
+        assertThat(unique.size(), is(numThreads * numIds));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.broadcast;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test BroadcastTransmitter and BroadcastReceiver over a real buffer
+ */
+public class BroadcastTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+    private static final int MESSAGE_LENGTH = 4;
+    private static final int RECORD_LENGTH = 2 * BroadcastBuffer.RECORD_ALIGNMENT;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + BroadcastBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[CAPACITY]);
+    private final AtomicBuffer copyBuffer = new AtomicBuffer(new byte[CAPACITY]);
+    private final BroadcastTransmitter transmitter = new BroadcastTransmitter(buffer);
+
+    @Test
+    public void shouldReceiveNothingWhenNothingTransmitted()
+    {
+        final BroadcastReceiver receiver = new BroadcastReceiver(buffer);
+
+        assertThat(receiver.receive(handler(new ArrayList<>()), copyBuffer, 10), is(0));
+    }
+
+    @Test
+    public void shouldDeliverEveryMessageToEveryReceiver()
+    {
+        final BroadcastReceiver receiver1 = new BroadcastReceiver(buffer);
+        final BroadcastReceiver receiver2 = new BroadcastReceiver(buffer);
+        final List<Integer> received1 = new ArrayList<>();
+        final List<Integer> received2 = new ArrayList<>();
+
+        transmit(1);
+        transmit(2);
+
+        assertThat(receiver1.receive(handler(received1), copyBuffer, 10), is(2));
+
+        transmit(3);
+
+        assertThat(receiver1.receive(handler(received1), copyBuffer, 10), is(1));
+        assertThat(receiver2.receive(handler(received2), copyBuffer, 10), is(3));
+        assertThat(received1, contains(1, 2, 3));
+        assertThat(received2, contains(1, 2, 3));
+    }
+
+    @Test
+    public void shouldOnlyReceiveMessagesTransmittedAfterCreation()
+    {
+        transmit(1);
+
+        final BroadcastReceiver receiver = new BroadcastReceiver(buffer);
+        final List<Integer> received = new ArrayList<>();
+
+        transmit(2);
+
+        assertThat(receiver.receive(handler(received), copyBuffer, 10), is(1));
+        assertThat(received, contains(2));
+    }
+
+    @Test
+    public void shouldSkipPaddingOnWrap()
+    {
+        final BroadcastReceiver receiver = new BroadcastReceiver(buffer);
+        final List<Integer> received = new ArrayList<>();
+        final int longLength = transmitter.maxMessageLength();
+        int count = 0;
+
+        while (transmitterPosition() + longLength + BroadcastBuffer.HEADER_LENGTH <= CAPACITY)
+        {
+            srcBuffer.putInt(0, count++);
+            transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, longLength);
+            receiver.receive(handler(received), copyBuffer, 10);
+        }
+
+        srcBuffer.putInt(0, count);
+        transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, longLength);
+
+        assertThat(receiver.receive(handler(received), copyBuffer, 10), is(1));
+        assertThat(received.get(count), is(count));
+        assertThat(receiver.lappedCount(), is(0L));
+        assertThat(receiver.position(), is((long)CAPACITY + longLength + BroadcastBuffer.HEADER_LENGTH));
+    }
+
+    @Test
+    public void shouldDetectLappingAndSkipToLatest()
+    {
+        final BroadcastReceiver receiver = new BroadcastReceiver(buffer);
+        final List<Integer> received = new ArrayList<>();
+        final int messagesToLap = CAPACITY / RECORD_LENGTH + 1;
+
+        for (int i = 0; i < messagesToLap; i++)
+        {
+            transmit(i);
+        }
+
+        assertThat(receiver.receive(handler(received), copyBuffer, 10), is(1));
+        assertThat(received, contains(messagesToLap - 1));
+        assertThat(receiver.lappedCount(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMessageLongerThanMaximum()
+    {
+        transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, transmitter.maxMessageLength() + 1);
+    }
+
+    private long transmitterPosition()
+    {
+        return buffer.getLongVolatile(CAPACITY + BroadcastBuffer.TAIL_RELATIVE_OFFSET);
+    }
+
+    private void transmit(final int value)
+    {
+        srcBuffer.putInt(0, value);
+        transmitter.transmit(MSG_TYPE_ID, srcBuffer, 0, MESSAGE_LENGTH);
+    }
+
+    private RingBufferReader.ReadHandler handler(final List<Integer> received)
+    {
+        return (typeId, buffer, offset, length) -> received.add(buffer.getInt(offset));
+    }
+}
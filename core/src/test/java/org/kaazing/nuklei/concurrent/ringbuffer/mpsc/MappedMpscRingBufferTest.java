@@ -0,0 +1,178 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test MappedMpscRingBuffer creation and attachment through a file
+ */
+public class MappedMpscRingBufferTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+
+    private final List<MappedMpscRingBuffer> mapped = new ArrayList<>();
+    private File file;
+
+    @Before
+    public void createFile() throws Exception
+    {
+        file = File.createTempFile("ringbuffer", ".dat");
+        file.delete();
+    }
+
+    @After
+    public void deleteFile()
+    {
+        mapped.forEach(MappedMpscRingBuffer::close);
+        file.delete();
+        MappedMpscRingBuffer.lockFile(file).delete();
+    }
+
+    @Test
+    public void shouldExchangeMessagesBetweenMappings() throws Exception
+    {
+        final MappedMpscRingBuffer created = track(MappedMpscRingBuffer.create(file, CAPACITY));
+        final MappedMpscRingBuffer attached = track(MappedMpscRingBuffer.attach(file));
+        final MpscRingBufferWriter writer = new MpscRingBufferWriter(attached.buffer());
+        final MpscRingBufferReader reader = new MpscRingBufferReader(created.buffer());
+        final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[4]);
+        final List<Integer> read = new ArrayList<>();
+
+        srcBuffer.putInt(0, 7);
+
+        assertThat(file.length(),
+            is((long)(MappedMpscRingBuffer.FILE_HEADER_LENGTH + CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE)));
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+        assertThat(reader.read((typeId, buffer, offset, length) -> read.add(buffer.getInt(offset)), 10), is(1));
+        assertThat(read, contains(7));
+    }
+
+    @Test
+    public void shouldRecordAlignmentInRingBuffer() throws Exception
+    {
+        final MappedMpscRingBuffer created =
+            track(MappedMpscRingBuffer.create(file, CAPACITY, 16, MpscRingBuffer.Zeroing.WRITERS));
+        final MappedMpscRingBuffer attached = track(MappedMpscRingBuffer.attach(file));
+
+        assertThat(MpscRingBuffer.alignment(attached.buffer()), is(16));
+        assertThat(MpscRingBuffer.zeroing(attached.buffer()), is(MpscRingBuffer.Zeroing.WRITERS));
+        assertThat(created.isStale(System.currentTimeMillis(), MappedMpscRingBuffer.LIVENESS_TIMEOUT_MS), is(false));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAttachToFileThatIsNotRingBuffer() throws Exception
+    {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(MappedMpscRingBuffer.FILE_HEADER_LENGTH + CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE);
+        }
+
+        MappedMpscRingBuffer.attach(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAttachToFileShorterThanHeader() throws Exception
+    {
+        try (final RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+        {
+            raf.setLength(MappedMpscRingBuffer.FILE_HEADER_LENGTH / 2);
+        }
+
+        MappedMpscRingBuffer.attach(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotReplaceRingBufferInUse() throws Exception
+    {
+        track(MappedMpscRingBuffer.create(file, CAPACITY));
+
+        MappedMpscRingBuffer.create(file, CAPACITY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotAttachWhenAlignmentDoesNotMatch() throws Exception
+    {
+        track(MappedMpscRingBuffer.create(file, CAPACITY, 16, MpscRingBuffer.Zeroing.READER));
+
+        try (final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE))
+        {
+            final ByteBuffer alignment = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
+
+            alignment.putInt(0, 32);
+            channel.write(alignment, MappedMpscRingBuffer.ALIGNMENT_OFFSET);
+        }
+
+        MappedMpscRingBuffer.attach(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotCreateWhileAnotherCreatorHoldsLock() throws Exception
+    {
+        try (final FileChannel channel = FileChannel.open(MappedMpscRingBuffer.lockFile(file).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+        {
+            final FileLock lock = channel.lock();
+
+            try
+            {
+                track(MappedMpscRingBuffer.create(file, CAPACITY));
+            }
+            finally
+            {
+                lock.release();
+            }
+        }
+    }
+
+    @Test
+    public void shouldReplaceRingBufferLeftBehind() throws Exception
+    {
+        final MappedMpscRingBuffer stale = track(MappedMpscRingBuffer.create(file, CAPACITY));
+
+        stale.heartbeat(System.currentTimeMillis() - 2 * MappedMpscRingBuffer.LIVENESS_TIMEOUT_MS);
+
+        assertThat(MappedMpscRingBuffer.isInUse(file), is(false));
+
+        final MappedMpscRingBuffer created = track(MappedMpscRingBuffer.create(file, 2 * CAPACITY));
+
+        assertThat(new MpscRingBufferReader(created.buffer()).capacity(), is(2 * CAPACITY));
+    }
+
+    private MappedMpscRingBuffer track(final MappedMpscRingBuffer ringBuffer)
+    {
+        mapped.add(ringBuffer);
+        return ringBuffer;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test MpscRingBuffer writer, reader and spy agree on an alignment other than the default
+ */
+public class MpscRingBufferAlignmentTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+    private static final int ALIGNMENT = 8;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final AtomicBuffer copyBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> read = new ArrayList<>();
+    private final List<Integer> spied = new ArrayList<>();
+
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
+    private MpscRingBufferSpy spy;
+
+    @Before
+    public void setUp()
+    {
+        MpscRingBuffer.initialize(buffer, ALIGNMENT);
+
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
+        spy = new MpscRingBufferSpy(buffer);
+    }
+
+    @Test
+    public void shouldRecordAlignment()
+    {
+        assertThat(MpscRingBuffer.alignment(buffer), is(ALIGNMENT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAlignmentNotPowerOfTwo()
+    {
+        MpscRingBuffer.initialize(buffer, 24);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectAlignmentBelowMinimum()
+    {
+        MpscRingBuffer.initialize(buffer, 4);
+    }
+
+    @Test
+    public void shouldPackMessagesToAlignment()
+    {
+        write(1, 4);
+        write(2, 4);
+
+        assertThat(spy.spy((typeId, buffer, offset, length) -> spied.add(buffer.getInt(offset)), copyBuffer, 10),
+            is(2));
+        assertThat(spy.position(), is(48L));
+        assertThat(reader.read((typeId, buffer, offset, length) -> read.add(buffer.getInt(offset)), 10), is(2));
+        assertThat(reader.position(), is(48L));
+        assertThat(read, contains(1, 2));
+        assertThat(spied, contains(1, 2));
+    }
+
+    @Test
+    public void shouldWrapPastPaddingShorterThanHeader()
+    {
+        // 16 + 25 * 40 leaves 8 bytes at the end of the buffer, too short for a full header
+        write(0, 0);
+
+        for (int i = 1; i <= 25; i++)
+        {
+            write(i, 24);
+            reader.read((typeId, buffer, offset, length) -> { }, 10);
+        }
+
+        final MpscRingBufferSpy resumedSpy = new MpscRingBufferSpy(buffer, reader.position());
+
+        write(26, 24);
+
+        assertThat(resumedSpy.spy((typeId, buffer, offset, length) -> spied.add(buffer.getInt(offset)), copyBuffer, 10),
+            is(1));
+        assertThat(resumedSpy.lappedCount(), is(0L));
+        // the reader stops at the end of the buffer, so consumes the padding and the message in separate reads
+        assertThat(reader.read((typeId, buffer, offset, length) -> read.add(buffer.getInt(offset)), 10), is(0));
+        assertThat(reader.read((typeId, buffer, offset, length) -> read.add(buffer.getInt(offset)), 10), is(1));
+        assertThat(reader.position(), is((long)CAPACITY + 40));
+        assertThat(read, contains(26));
+        assertThat(spied, contains(26));
+    }
+
+    private void write(final int value, final int length)
+    {
+        srcBuffer.putInt(0, value);
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, length), is(true));
+    }
+}
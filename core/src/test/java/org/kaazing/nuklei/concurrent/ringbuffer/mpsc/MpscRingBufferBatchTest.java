@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test MpscRingBufferBatch written by MpscRingBufferWriter
+ */
+public class MpscRingBufferBatchTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> read = new ArrayList<>();
+    private final List<Long> sequences = new ArrayList<>();
+    private final MpscRingBufferReader.ReadHandler handler = (typeId, buffer, offset, length) ->
+    {
+        read.add(buffer.getInt(offset));
+        sequences.add(MpscRingBuffer.messageSequence(buffer, offset));
+    };
+
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
+    private MpscRingBufferBatch batch;
+
+    @Before
+    public void setUp()
+    {
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
+        batch = new MpscRingBufferBatch(4 * MpscRingBuffer.MESSAGE_ALIGNMENT);
+    }
+
+    @Test
+    public void shouldWriteAllMessagesOfBatchInOrder()
+    {
+        add(1);
+        add(2);
+        add(3);
+
+        assertThat(batch.size(), is(3));
+        assertThat(writer.writeBatch(batch), is(true));
+        assertThat(batch.size(), is(0));
+        assertThat(reader.read(handler, 10), is(3));
+        assertThat(read, contains(1, 2, 3));
+        assertThat(sequences, contains(0L, (long)MpscRingBuffer.MESSAGE_ALIGNMENT,
+            2L * MpscRingBuffer.MESSAGE_ALIGNMENT));
+    }
+
+    @Test
+    public void shouldNotAddBeyondCapacity()
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            add(i);
+        }
+
+        srcBuffer.putInt(0, 4);
+        assertThat(batch.add(MSG_TYPE_ID, srcBuffer, 0, 4), is(false));
+        assertThat(batch.length(), is(4 * MpscRingBuffer.MESSAGE_ALIGNMENT));
+    }
+
+    @Test
+    public void shouldKeepBatchWhenRingBufferFull()
+    {
+        for (int i = 0; i < CAPACITY / MpscRingBuffer.MESSAGE_ALIGNMENT - 1; i++)
+        {
+            srcBuffer.putInt(0, i);
+            assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+        }
+
+        add(100);
+        add(101);
+
+        assertThat(writer.writeBatch(batch), is(false));
+        assertThat(batch.size(), is(2));
+
+        reader.read(handler, 2);
+        read.clear();
+
+        assertThat(writer.writeBatch(batch), is(true));
+        assertThat(reader.read(handler, 20), is(13));
+        assertThat(reader.read(handler, 20), is(2));
+        assertThat(read.subList(13, 15), contains(100, 101));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchOfOtherAlignment()
+    {
+        writer.writeBatch(new MpscRingBufferBatch(CAPACITY, 8));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchLongerThanHalfCapacity()
+    {
+        batch = new MpscRingBufferBatch(writer.maxBatchLength() + MpscRingBuffer.MESSAGE_ALIGNMENT);
+
+        fill();
+        writer.writeBatch(batch);
+    }
+
+    @Test
+    public void shouldWriteBatchOfHalfCapacityAcrossEndOfBuffer()
+    {
+        batch = new MpscRingBufferBatch(writer.maxBatchLength());
+
+        add(1);
+        assertThat(writer.writeBatch(batch), is(true));
+        assertThat(reader.read(handler, 1), is(1));
+
+        fill();
+
+        // does not fit at the end, so padding takes the rest and the batch starts over once the reader catches up
+        for (int i = 0; i < 3; i++)
+        {
+            assertThat(writer.writeBatch(batch), is(true));
+            reader.read(handler, Integer.MAX_VALUE);
+            fill();
+        }
+
+        assertThat(read.size(), is(1 + 3 * batch.size()));
+    }
+
+    private void fill()
+    {
+        int value = 0;
+
+        while (batch.add(MSG_TYPE_ID, srcBuffer, 0, 4))
+        {
+            srcBuffer.putInt(0, ++value);
+        }
+    }
+
+    private void add(final int value)
+    {
+        srcBuffer.putInt(0, value);
+        assertThat(batch.add(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+    }
+}
@@ -45,12 +45,16 @@ public class MpscRingBufferConcurrencyTest
     private static final int NUM_WRITERS_INDEX = 0;
     private static final int NUM_GENERATORS_INDEX = 0;
     private static final int CAPACITY_INDEX = 1;
+    private static final int WRITERS_ZERO_INDEX = 2;
 
     private static final int MESSAGE_LENGTH = 2 * BitUtil.SIZE_OF_INT;
 
     @DataPoint
     public static final int[] TWO_WRITERS_16K = { 2, 16 * 1024 };
 
+    @DataPoint
+    public static final int[] TWO_WRITERS_16K_WRITERS_ZERO = { 2, 16 * 1024, 1 };
+
 // Additional data points that can aid in testing. Uncomment if suspected problems
 //
 //    @DataPoint
@@ -126,6 +130,11 @@ public class MpscRingBufferConcurrencyTest
         final AtomicBuffer atomicBuffer =
                 new AtomicBuffer(ByteBuffer.allocateDirect(capacity + MpscRingBuffer.STATE_TRAILER_SIZE));
 
+        if (params.length > WRITERS_ZERO_INDEX && 1 == params[WRITERS_ZERO_INDEX])
+        {
+            MpscRingBuffer.initialize(atomicBuffer, MpscRingBuffer.MESSAGE_ALIGNMENT, MpscRingBuffer.Zeroing.WRITERS);
+        }
+
         final MpscRingBufferReader reader = new MpscRingBufferReader(atomicBuffer);
 
         IntStream.range(0, numWriters).forEach((i) ->
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferReader.ControlledReadHandler.Action;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test MpscRingBufferReader controlled reads over a real buffer
+ */
+public class MpscRingBufferControlledReadTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> read = new ArrayList<>();
+
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
+
+    @Before
+    public void setUp()
+    {
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
+
+        for (int i = 1; i <= 3; i++)
+        {
+            srcBuffer.putInt(0, i);
+            assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+        }
+    }
+
+    @Test
+    public void shouldReadAllWhenContinuing()
+    {
+        assertThat(reader.controlledRead(handler(Action.CONTINUE, 0), 10), is(3));
+        assertThat(read, contains(1, 2, 3));
+        assertThat(reader.position(), is(3L * MpscRingBuffer.MESSAGE_ALIGNMENT));
+    }
+
+    @Test
+    public void shouldConsumeMessageThenStopOnBreak()
+    {
+        assertThat(reader.controlledRead(handler(Action.BREAK, 2), 10), is(2));
+        assertThat(reader.position(), is(2L * MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(reader.controlledRead(handler(Action.CONTINUE, 0), 10), is(1));
+        assertThat(read, contains(1, 2, 3));
+    }
+
+    @Test
+    public void shouldLeaveMessageInPlaceOnAbort()
+    {
+        assertThat(reader.controlledRead(handler(Action.ABORT, 2), 10), is(1));
+        assertThat(reader.position(), is((long)MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(reader.controlledRead(handler(Action.CONTINUE, 0), 10), is(2));
+        assertThat(read, contains(1, 2, 2, 3));
+    }
+
+    @Test
+    public void shouldGiveBackSpaceMidReadOnCommit()
+    {
+        final long[] positions = new long[3];
+
+        reader.controlledRead((typeId, buffer, offset, length) ->
+        {
+            final int value = buffer.getInt(offset);
+            positions[value - 1] = reader.position();
+            return 1 == value ? Action.COMMIT : Action.CONTINUE;
+        }, 10);
+
+        assertThat(positions[0], is(0L));
+        assertThat(positions[1], is((long)MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(positions[2], is((long)MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(reader.position(), is(3L * MpscRingBuffer.MESSAGE_ALIGNMENT));
+    }
+
+    @Test
+    public void shouldStopOnceByteLimitReached()
+    {
+        assertThat(reader.controlledRead(handler(Action.CONTINUE, 0), 10, MpscRingBuffer.MESSAGE_ALIGNMENT + 1), is(2));
+        assertThat(read, contains(1, 2));
+    }
+
+    private MpscRingBufferReader.ControlledReadHandler handler(final Action action, final int onValue)
+    {
+        return (typeId, buffer, offset, length) ->
+        {
+            final int value = buffer.getInt(offset);
+            read.add(value);
+            return value == onValue ? action : Action.CONTINUE;
+        };
+    }
+}
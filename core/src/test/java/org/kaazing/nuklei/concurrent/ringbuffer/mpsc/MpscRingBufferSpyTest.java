@@ -16,10 +16,16 @@
 package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
 
 import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.kaazing.nuklei.concurrent.ringbuffer.RingBufferSpy;
 import org.junit.Before;
+import org.junit.Test;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.core.Is.is;
 
 /**
  * Test MpscRingBufferSpy in isolation
@@ -29,19 +35,111 @@ public class MpscRingBufferSpyTest
     private static final int MSG_TYPE_ID = 100;
     private static final int CAPACITY = 1024;
 
-    private static final int HEAD_COUNTER_INDEX = CAPACITY + MpscRingBuffer.HEAD_RELATIVE_OFFSET;
-    private static final int TAIL_COUNTER_INDEX = CAPACITY + MpscRingBuffer.TAIL_RELATIVE_OFFSET;
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final AtomicBuffer copyBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> spied = new ArrayList<>();
+    private final RingBufferSpy.SpyHandler handler =
+        (typeId, buffer, offset, length) -> spied.add(buffer.getInt(offset));
 
-    private final AtomicBuffer buffer = mock(AtomicBuffer.class);
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
     private MpscRingBufferSpy spy;
 
     @Before
     public void setUp()
     {
-        when(buffer.capacity()).thenReturn(CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE);
-
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
         spy = new MpscRingBufferSpy(buffer);
     }
 
+    @Test
+    public void shouldSpyNothingWhenEmpty()
+    {
+        assertThat(spy.spy(handler, copyBuffer, 10), is(0));
+        assertThat(spy.position(), is(0L));
+    }
+
+    @Test
+    public void shouldCopyMessagesWithoutConsumingThem()
+    {
+        write(1);
+        write(2);
+
+        assertThat(spy.spy(handler, copyBuffer, 10), is(2));
+        assertThat(spied, contains(1, 2));
+        assertThat(spy.lappedCount(), is(0L));
+        assertThat(reader.read((typeId, buffer, offset, length) -> { }, 10), is(2));
+    }
+
+    @Test
+    public void shouldRespectLimit()
+    {
+        write(1);
+        write(2);
+
+        assertThat(spy.spy(handler, copyBuffer, 1), is(1));
+        assertThat(spy.spy(handler, copyBuffer, 1), is(1));
+        assertThat(spied, contains(1, 2));
+    }
+
+    @Test
+    public void shouldDetectLappingOnceReaderHasConsumedMessages()
+    {
+        write(1);
+        write(2);
+        reader.read((typeId, buffer, offset, length) -> { }, 10);
+        write(3);
+
+        assertThat(spy.spy(handler, copyBuffer, 10), is(1));
+        assertThat(spied, contains(3));
+        assertThat(spy.lappedCount(), is(1L));
+    }
+
+    @Test
+    public void shouldViewMessagesInPlace()
+    {
+        write(1);
+
+        final int viewed = spy.view((typeId, buffer, offset, length) ->
+        {
+            spied.add(buffer.getInt(offset));
+            assertThat(spy.validate(), is(true));
+        }, 10);
+
+        assertThat(viewed, is(1));
+        assertThat(spied, contains(1));
+        assertThat(spy.position(), is((long)MpscRingBuffer.MESSAGE_ALIGNMENT));
+    }
+
+    @Test
+    public void shouldExposeMessageSequenceAndResumeFromIt()
+    {
+        final long[] sequences = new long[2];
 
+        write(1);
+        write(2);
+        spy.spy((typeId, buffer, offset, length) ->
+            sequences[buffer.getInt(offset) - 1] = MpscRingBuffer.messageSequence(buffer, offset), copyBuffer, 10);
+        reader.read((typeId, buffer, offset, length) ->
+            assertThat(MpscRingBuffer.messageSequence(buffer, offset), is(sequences[buffer.getInt(offset) - 1])), 10);
+
+        assertThat(sequences[0], is(0L));
+        assertThat(sequences[1], is((long)MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(reader.position(), is(2L * MpscRingBuffer.MESSAGE_ALIGNMENT));
+
+        write(3);
+        final MpscRingBufferSpy resumedSpy = new MpscRingBufferSpy(buffer, reader.position());
+
+        assertThat(resumedSpy.spy(handler, copyBuffer, 10), is(1));
+        assertThat(spied, contains(3));
+        assertThat(resumedSpy.lappedCount(), is(0L));
+    }
+
+    private void write(final int value)
+    {
+        srcBuffer.putInt(0, value);
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+    }
 }
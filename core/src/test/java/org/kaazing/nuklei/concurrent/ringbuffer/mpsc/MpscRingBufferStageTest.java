@@ -0,0 +1,164 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test a pipeline of MpscRingBufferStages processing messages in place ahead of the reader
+ */
+public class MpscRingBufferStageTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+    private static final int ALIGNMENT = 8;
+    private static final int FIRST_STAGE = 0;
+    private static final int SECOND_STAGE = 1;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer sequencesBuffer = new AtomicBuffer(new byte[StageSequences.length(2)]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> read = new ArrayList<>();
+
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferStage firstStage;
+    private MpscRingBufferStage secondStage;
+    private MpscRingBufferReader reader;
+
+    @Before
+    public void setUp()
+    {
+        MpscRingBuffer.initialize(buffer, ALIGNMENT);
+
+        final StageSequences sequences = new StageSequences(sequencesBuffer);
+
+        writer = new MpscRingBufferWriter(buffer);
+        firstStage = new MpscRingBufferStage(buffer, sequences, FIRST_STAGE);
+        secondStage = new MpscRingBufferStage(buffer, sequences, SECOND_STAGE, FIRST_STAGE);
+        reader = new MpscRingBufferReader(buffer, sequences, SECOND_STAGE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownStage()
+    {
+        new MpscRingBufferStage(buffer, new StageSequences(sequencesBuffer), 2);
+    }
+
+    @Test
+    public void shouldProcessInPlaceInStageOrder()
+    {
+        write(1);
+        write(2);
+
+        assertThat(secondStage.read(this::doubleValue, 10), is(0));
+        assertThat(firstStage.read(this::incrementValue, 10), is(2));
+        assertThat(secondStage.read(this::doubleValue, 10), is(2));
+        assertThat(reader.read(this::addValue, 10), is(2));
+        assertThat(read, contains(4, 6));
+        assertThat(reader.position(), is(firstStage.position()));
+    }
+
+    @Test
+    public void shouldNotReadPastStages()
+    {
+        write(1);
+        write(2);
+
+        assertThat(firstStage.read(this::incrementValue, 1), is(1));
+        assertThat(reader.read(this::addValue, 10), is(0));
+        assertThat(secondStage.read(this::doubleValue, 10), is(1));
+        assertThat(reader.read(this::addValue, 10), is(1));
+        assertThat(read, contains(4));
+    }
+
+    @Test
+    public void shouldHoldBackWritersUntilStagesProgress()
+    {
+        // 16 byte header + 4 byte value aligned to 24 bytes, leaving 16 bytes of the buffer
+        for (int i = 0; i < CAPACITY / 24; i++)
+        {
+            write(i);
+        }
+
+        srcBuffer.putInt(0, -1);
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(false));
+        assertThat(reader.read(this::addValue, 10), is(0));
+        assertThat(read, empty());
+
+        firstStage.read(this::incrementValue, 1);
+        secondStage.read(this::doubleValue, 1);
+
+        assertThat(reader.read(this::addValue, 10), is(1));
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+    }
+
+    @Test
+    public void shouldFollowWritersAcrossWrap()
+    {
+        for (int i = 0; i < CAPACITY / 24; i++)
+        {
+            write(i);
+        }
+
+        firstStage.read(this::incrementValue, CAPACITY);
+        secondStage.read(this::doubleValue, CAPACITY);
+        reader.read((typeId, buffer, offset, length) -> { }, CAPACITY);
+
+        write(10);
+
+        // the first reads stop at the padding at the end of the buffer
+        firstStage.read(this::incrementValue, 10);
+        firstStage.read(this::incrementValue, 10);
+        secondStage.read(this::doubleValue, 10);
+        secondStage.read(this::doubleValue, 10);
+        reader.read(this::addValue, 10);
+        reader.read(this::addValue, 10);
+
+        assertThat(read, contains(22));
+        assertThat(reader.position(), is((long)CAPACITY + 24));
+    }
+
+    private void write(final int value)
+    {
+        srcBuffer.putInt(0, value);
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer, 0, 4), is(true));
+    }
+
+    private void incrementValue(final int typeId, final AtomicBuffer buffer, final int offset, final int length)
+    {
+        buffer.putInt(offset, buffer.getInt(offset) + 1);
+    }
+
+    private void doubleValue(final int typeId, final AtomicBuffer buffer, final int offset, final int length)
+    {
+        buffer.putInt(offset, buffer.getInt(offset) * 2);
+    }
+
+    private void addValue(final int typeId, final AtomicBuffer buffer, final int offset, final int length)
+    {
+        read.add(buffer.getInt(offset));
+    }
+}
@@ -66,6 +66,15 @@ public class MpscRingBufferWriterTest
         new MpscRingBufferWriter(buffer);
     }
 
+    @Test(expected = IllegalStateException.class)
+    public void shouldThrowExceptionWhenLayoutVersionUnknown()
+    {
+        when(buffer.getLongVolatile(CAPACITY + MpscRingBuffer.LAYOUT_VERSION_RELATIVE_OFFSET))
+            .thenReturn(MpscRingBuffer.LAYOUT_VERSION + 1);
+
+        new MpscRingBufferWriter(buffer);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldThrowExceptionWhenWritingWithWrongMessageTypeId()
     {
@@ -143,6 +152,7 @@ public class MpscRingBufferWriterTest
 
         inOrder.verify(buffer).compareAndSwapLong(TAIL_COUNTER_INDEX, tail, tail + alignedMessageLength);
         inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong((int)tail + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, tail);
         inOrder.verify(buffer).putBytes((int)tail + MpscRingBuffer.HEADER_LENGTH, srcBuffer, 0, lengthToWrite);
         inOrder.verify(buffer).putIntOrdered((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
                 lengthToWrite + MpscRingBuffer.HEADER_LENGTH);
@@ -171,10 +181,13 @@ public class MpscRingBufferWriterTest
 
         inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET,
                 MpscRingBuffer.PADDING_MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong((int)tail + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, tail);
         inOrder.verify(buffer).putIntOrdered((int) tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
                 MpscRingBuffer.MESSAGE_ALIGNMENT);
 
         inOrder.verify(buffer).putInt(0 + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong(0 + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET,
+                tail + MpscRingBuffer.MESSAGE_ALIGNMENT);
         inOrder.verify(buffer).putBytes(0 + MpscRingBuffer.HEADER_LENGTH, srcBuffer, 0, lengthToWrite);
         inOrder.verify(buffer).putIntOrdered(0 + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
                 lengthToWrite + MpscRingBuffer.HEADER_LENGTH);
@@ -203,13 +216,99 @@ public class MpscRingBufferWriterTest
 
         inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET,
                 MpscRingBuffer.PADDING_MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong((int)tail + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, tail);
         inOrder.verify(buffer).putIntOrdered((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
                 MpscRingBuffer.MESSAGE_ALIGNMENT);
 
         inOrder.verify(buffer).putInt(0 + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong(0 + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET,
+                tail + MpscRingBuffer.MESSAGE_ALIGNMENT);
         inOrder.verify(buffer).putBytes(0 + MpscRingBuffer.HEADER_LENGTH, srcBuffer, 0, lengthToWrite);
         inOrder.verify(buffer).putIntOrdered(0 + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
                 lengthToWrite + MpscRingBuffer.HEADER_LENGTH);
     }
 
+    @Test
+    public void shouldClaimThenCommitInPlace()
+    {
+        final long tail = MpscRingBuffer.MESSAGE_ALIGNMENT;
+        final long head = tail;
+        final int lengthToClaim = 16;
+        final int recordLength = lengthToClaim + MpscRingBuffer.HEADER_LENGTH;
+
+        when(buffer.getLongVolatile(HEAD_COUNTER_INDEX)).thenReturn(head);
+        when(buffer.getLongVolatile(TAIL_COUNTER_INDEX)).thenReturn(tail);
+        when(buffer.compareAndSwapLong(TAIL_COUNTER_INDEX, tail, tail + MpscRingBuffer.MESSAGE_ALIGNMENT))
+            .thenReturn(true);
+        when(buffer.getInt((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET)).thenReturn(-recordLength);
+
+        final int index = writer.tryClaim(MSG_TYPE_ID, lengthToClaim);
+        writer.commit(index);
+
+        assertThat(index, is((int)tail + MpscRingBuffer.HEADER_LENGTH));
+
+        final InOrder inOrder = Mockito.inOrder(buffer);
+
+        inOrder.verify(buffer).compareAndSwapLong(TAIL_COUNTER_INDEX, tail, tail + MpscRingBuffer.MESSAGE_ALIGNMENT);
+        inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET, MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong((int)tail + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, tail);
+        inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET, -recordLength);
+        inOrder.verify(buffer).putIntOrdered((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET, recordLength);
+        verify(buffer, never()).putBytes(anyInt(), any(AtomicBuffer.class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void shouldNotClaimWhenAlreadyFull()
+    {
+        final long head = 0L;
+        final long tail = head + CAPACITY;
+
+        when(buffer.getLongVolatile(HEAD_COUNTER_INDEX)).thenReturn(head);
+        when(buffer.getLongVolatile(TAIL_COUNTER_INDEX)).thenReturn(tail);
+
+        assertThat(writer.tryClaim(MSG_TYPE_ID, 16), is(MpscRingBufferWriter.CLAIM_FAILED));
+        verify(buffer, never()).compareAndSwapLong(anyInt(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void shouldPadAwayRestOfClaimWhenCommittingShorter()
+    {
+        final long tail = 0L;
+        final int claimedRecordLength = 2 * MpscRingBuffer.MESSAGE_ALIGNMENT;
+        final int lengthToCommit = 16;
+
+        when(buffer.getInt((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET)).thenReturn(-claimedRecordLength);
+        when(buffer.getLong((int)tail + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET)).thenReturn(tail);
+
+        writer.commit((int)tail + MpscRingBuffer.HEADER_LENGTH, lengthToCommit);
+
+        final int paddingIndex = (int)tail + MpscRingBuffer.MESSAGE_ALIGNMENT;
+        final InOrder inOrder = Mockito.inOrder(buffer);
+
+        inOrder.verify(buffer).putInt(paddingIndex + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET,
+                MpscRingBuffer.PADDING_MSG_TYPE_ID);
+        inOrder.verify(buffer).putLong(paddingIndex + MpscRingBuffer.HEADER_MSG_SEQNUM_OFFSET, (long)paddingIndex);
+        inOrder.verify(buffer).putIntOrdered(paddingIndex + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
+                MpscRingBuffer.MESSAGE_ALIGNMENT);
+        inOrder.verify(buffer).putIntOrdered((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
+                lengthToCommit + MpscRingBuffer.HEADER_LENGTH);
+    }
+
+    @Test
+    public void shouldTurnAbortedClaimIntoPadding()
+    {
+        final long tail = 0L;
+        final int recordLength = 16 + MpscRingBuffer.HEADER_LENGTH;
+
+        when(buffer.getInt((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET)).thenReturn(-recordLength);
+
+        writer.abort((int)tail + MpscRingBuffer.HEADER_LENGTH);
+
+        final InOrder inOrder = Mockito.inOrder(buffer);
+
+        inOrder.verify(buffer).putInt((int)tail + MpscRingBuffer.HEADER_MSG_TYPE_OFFSET,
+                MpscRingBuffer.PADDING_MSG_TYPE_ID);
+        inOrder.verify(buffer).putIntOrdered((int)tail + MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET,
+                MpscRingBuffer.MESSAGE_ALIGNMENT);
+    }
 }
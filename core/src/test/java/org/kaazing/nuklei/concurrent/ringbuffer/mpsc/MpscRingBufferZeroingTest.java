@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.concurrent.ringbuffer.mpsc;
+
+import org.kaazing.nuklei.concurrent.AtomicBuffer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.core.Is.is;
+
+/**
+ * Test MpscRingBuffer with writers zeroing consumed space instead of the reader
+ */
+public class MpscRingBufferZeroingTest
+{
+    private static final int MSG_TYPE_ID = 100;
+    private static final int CAPACITY = 1024;
+    private static final int MESSAGE_LENGTH = 4;
+    private static final int ZEROED_COUNTER_INDEX = CAPACITY + MpscRingBuffer.ZEROED_RELATIVE_OFFSET;
+
+    private final AtomicBuffer buffer = new AtomicBuffer(new byte[CAPACITY + MpscRingBuffer.STATE_TRAILER_SIZE]);
+    private final AtomicBuffer srcBuffer = new AtomicBuffer(new byte[64]);
+    private final AtomicBuffer copyBuffer = new AtomicBuffer(new byte[64]);
+    private final List<Integer> read = new ArrayList<>();
+    private final MpscRingBufferReader.ReadHandler handler =
+        (typeId, buffer, offset, length) -> read.add(buffer.getInt(offset));
+
+    private MpscRingBufferWriter writer;
+    private MpscRingBufferReader reader;
+
+    @Before
+    public void setUp()
+    {
+        MpscRingBuffer.initialize(buffer, MpscRingBuffer.MESSAGE_ALIGNMENT, MpscRingBuffer.Zeroing.WRITERS);
+
+        writer = new MpscRingBufferWriter(buffer);
+        reader = new MpscRingBufferReader(buffer);
+    }
+
+    @Test
+    public void shouldRecordZeroing()
+    {
+        assertThat(MpscRingBuffer.zeroing(buffer), is(MpscRingBuffer.Zeroing.WRITERS));
+    }
+
+    @Test
+    public void shouldLeaveConsumedSpaceToWriters()
+    {
+        write(1);
+
+        assertThat(reader.read(handler, 10), is(1));
+        assertThat(buffer.getInt(MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET), not(0));
+        assertThat(buffer.getLongVolatile(ZEROED_COUNTER_INDEX), is(0L));
+    }
+
+    @Test
+    public void shouldZeroConsumedSpaceOnceQuarterOfBufferIsWaiting()
+    {
+        final int messagesPerQuarter = CAPACITY / 4 / MpscRingBuffer.MESSAGE_ALIGNMENT;
+
+        for (int i = 0; i < messagesPerQuarter; i++)
+        {
+            write(i);
+        }
+
+        assertThat(reader.read(handler, 10), is(messagesPerQuarter));
+
+        write(messagesPerQuarter);
+
+        assertThat(buffer.getLongVolatile(ZEROED_COUNTER_INDEX), is((long)CAPACITY / 4));
+        assertThat(buffer.getInt(MpscRingBuffer.HEADER_MSG_LENGTH_OFFSET), is(0));
+    }
+
+    @Test
+    public void shouldZeroAtMostOneChunkAheadOfClaim()
+    {
+        final int capacity = 16 * MpscRingBuffer.ZERO_CHUNK_LENGTH;
+        final AtomicBuffer largeBuffer = new AtomicBuffer(new byte[capacity + MpscRingBuffer.STATE_TRAILER_SIZE]);
+        MpscRingBuffer.initialize(largeBuffer, MpscRingBuffer.MESSAGE_ALIGNMENT, MpscRingBuffer.Zeroing.WRITERS);
+        final MpscRingBufferWriter largeWriter = new MpscRingBufferWriter(largeBuffer);
+        final MpscRingBufferReader largeReader = new MpscRingBufferReader(largeBuffer);
+
+        fillAndConsume(largeWriter, largeReader);
+
+        assertThat(largeWriter.write(MSG_TYPE_ID, srcBuffer(1), 0, MESSAGE_LENGTH), is(true));
+        assertThat(largeBuffer.getLongVolatile(capacity + MpscRingBuffer.ZEROED_RELATIVE_OFFSET),
+            is((long)MpscRingBuffer.ZERO_CHUNK_LENGTH));
+    }
+
+    @Test
+    public void shouldZeroChunksUntilLargeClaimFits()
+    {
+        final int capacity = 16 * MpscRingBuffer.ZERO_CHUNK_LENGTH;
+        final AtomicBuffer largeBuffer = new AtomicBuffer(new byte[capacity + MpscRingBuffer.STATE_TRAILER_SIZE]);
+        MpscRingBuffer.initialize(largeBuffer, MpscRingBuffer.MESSAGE_ALIGNMENT, MpscRingBuffer.Zeroing.WRITERS);
+        final MpscRingBufferWriter largeWriter = new MpscRingBufferWriter(largeBuffer);
+        final MpscRingBufferReader largeReader = new MpscRingBufferReader(largeBuffer);
+        final AtomicBuffer largeSrcBuffer = new AtomicBuffer(new byte[2 * MpscRingBuffer.ZERO_CHUNK_LENGTH]);
+
+        fillAndConsume(largeWriter, largeReader);
+
+        assertThat(largeWriter.write(MSG_TYPE_ID, largeSrcBuffer, 0, largeSrcBuffer.capacity()), is(true));
+        assertThat(largeBuffer.getLongVolatile(capacity + MpscRingBuffer.ZEROED_RELATIVE_OFFSET),
+            is(3L * MpscRingBuffer.ZERO_CHUNK_LENGTH));
+    }
+
+    @Test
+    public void shouldZeroWhenOutOfSpaceAndKeepExchangingOverManyLaps()
+    {
+        final MpscRingBufferSpy spy = new MpscRingBufferSpy(buffer);
+        final List<Integer> spied = new ArrayList<>();
+        int expected = 0;
+
+        for (int i = 0; i < 10 * CAPACITY / MpscRingBuffer.MESSAGE_ALIGNMENT; i++)
+        {
+            while (!writer.write(MSG_TYPE_ID, srcBuffer(i), 0, MESSAGE_LENGTH))
+            {
+                spy.spy((typeId, buffer, offset, length) -> spied.add(buffer.getInt(offset)), copyBuffer, 1);
+                reader.read(handler, 1);
+            }
+        }
+
+        while (reader.read(handler, 10) != 0)
+        {
+        }
+
+        for (final int value : read)
+        {
+            assertThat(value, is(expected++));
+        }
+
+        assertThat(expected, is(10 * CAPACITY / MpscRingBuffer.MESSAGE_ALIGNMENT));
+        assertThat(spied.isEmpty(), is(false));
+        assertThat(spy.lappedCount(), is(0L));
+    }
+
+    @Test
+    public void shouldSpyWithoutReaderZeroing()
+    {
+        final MpscRingBufferSpy spy = new MpscRingBufferSpy(buffer);
+        final List<Integer> spied = new ArrayList<>();
+
+        write(1);
+        write(2);
+
+        assertThat(spy.spy((typeId, buffer, offset, length) -> spied.add(buffer.getInt(offset)), copyBuffer, 10),
+            is(2));
+        assertThat(spied, contains(1, 2));
+    }
+
+    private void fillAndConsume(final MpscRingBufferWriter writer, final MpscRingBufferReader reader)
+    {
+        while (writer.write(MSG_TYPE_ID, srcBuffer(0), 0, MESSAGE_LENGTH))
+        {
+        }
+
+        while (reader.read(handler, 100) != 0)
+        {
+        }
+    }
+
+    private void write(final int value)
+    {
+        assertThat(writer.write(MSG_TYPE_ID, srcBuffer(value), 0, MESSAGE_LENGTH), is(true));
+    }
+
+    private AtomicBuffer srcBuffer(final int value)
+    {
+        srcBuffer.putInt(0, value);
+        return srcBuffer;
+    }
+}
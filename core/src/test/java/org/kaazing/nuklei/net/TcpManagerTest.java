@@ -44,9 +44,16 @@ public class TcpManagerTest
     private static final int MANAGER_COMMAND_QUEUE_SIZE = 1024;
     private static final int MANAGER_SEND_BUFFER_SIZE = 64*1024 + MpscRingBuffer.STATE_TRAILER_SIZE;
     private static final int RECEIVE_BUFFER_SIZE = 64*1024 + MpscRingBuffer.STATE_TRAILER_SIZE;
+    private static final int SMALL_RECEIVE_BUFFER_SIZE = 1024 + MpscRingBuffer.STATE_TRAILER_SIZE;
     private static final int PORT = 40134;
+    private static final int SMALL_RECEIVE_PORT = PORT + 1;
+    private static final int BACK_PRESSURE_PORT = PORT + 2;
+    private static final int CLOSE_PORT = PORT + 3;
+    private static final int SMALL_MESSAGES = 64;
+    private static final int LARGE_MESSAGE_LENGTH = 1000;
     private static final int SEND_BUFFER_SIZE = 1024;
     private static final int MAGIC_PAYLOAD_INT = 8;
+    private static final long LONG_SELECT_TIMEOUT_MS = 10000;
 
     private final MpscArrayBuffer<Object> managerCommandQueue = new MpscArrayBuffer<>(MANAGER_COMMAND_QUEUE_SIZE);
     private final AtomicBuffer managerSendBuffer = new AtomicBuffer(ByteBuffer.allocate(MANAGER_SEND_BUFFER_SIZE));
@@ -60,6 +67,7 @@ public class TcpManagerTest
     private TcpManager tcpManager;
     private TcpManagerProxy tcpManagerProxy;
     private DedicatedNuklei dedicatedNuklei;
+    private DedicatedNuklei[] blockingNuklei = new DedicatedNuklei[0];
     private SocketChannel senderChannel;
     private SocketChannel receiverChannel;
 
@@ -79,6 +87,11 @@ public class TcpManagerTest
             dedicatedNuklei.stop();
         }
 
+        for (final DedicatedNuklei nuklei : blockingNuklei)
+        {
+            nuklei.stop();
+        }
+
         if (null != tcpManager)
         {
             tcpManager.close();
@@ -173,11 +186,193 @@ public class TcpManagerTest
         assertThat(messages, is(1));
     }
 
+    @Test(timeout = 3000)
+    public void shouldWakeSenderBlockedInSelectOnSend() throws Exception
+    {
+        dedicatedNuklei.stop();
+        dedicatedNuklei = null;
+        tcpManager.close();
+
+        // without a wakeup a blocked thread only notices commands and data after the select timeout
+        tcpManager = new TcpManager(managerCommandQueue, managerSendBuffer, LONG_SELECT_TIMEOUT_MS);
+        tcpManagerProxy = tcpManager.proxy(managerCommandQueue);
+        managerCommandQueue.wakeupSignal(tcpManager.acceptIdler());
+        blockingNuklei = new DedicatedNuklei[]
+        {
+            new DedicatedNuklei("TCP-manager-accept", tcpManager.acceptIdler()),
+            new DedicatedNuklei("TCP-manager-receive", tcpManager.receiveIdler()),
+            new DedicatedNuklei("TCP-manager-send", tcpManager.sendIdler())
+        };
+        tcpManager.launch(blockingNuklei[0], blockingNuklei[1], blockingNuklei[2]);
+
+        tcpManagerProxy.attach(PORT, new InetAddress[0], receiveBuffer);
+
+        // TODO: this could race with the attach completing and doing the bind
+        Thread.sleep(100);
+
+        receiverChannel = SocketChannel.open();
+        receiverChannel.connect(new InetSocketAddress("localhost", PORT));
+        receiverChannel.configureBlocking(false);
+
+        receiveSingleMessage((typeId, buffer, offset, length) ->
+            assertThat(typeId, is(TcpManagerEvents.NEW_CONNECTION_TYPE_ID)));
+
+        // long enough for the idle sender thread to be blocked in its selector
+        Thread.sleep(200);
+
+        sendAtomicBuffer.putLong(0, 0);  // set connection ID
+        sendAtomicBuffer.putInt(BitUtil.SIZE_OF_LONG, MAGIC_PAYLOAD_INT);
+
+        tcpManagerProxy.send(sendAtomicBuffer, 0, BitUtil.SIZE_OF_LONG + BitUtil.SIZE_OF_INT);
+
+        receiveChannelBuffer.clear();
+
+        final int messages = receiveSingleMessage(receiverChannel, (buffer) ->
+            assertThat(buffer.getInt(0), is(MAGIC_PAYLOAD_INT)));
+        assertThat(messages, is(1));
+    }
+
+    @Test(timeout = 3000)
+    public void shouldReceiveSmallMessagesInOrderWithoutPaddingThroughSmallReceiveBuffer() throws Exception
+    {
+        final AtomicBuffer smallReceiveBuffer = new AtomicBuffer(ByteBuffer.allocate(SMALL_RECEIVE_BUFFER_SIZE));
+        final MpscRingBufferReader smallReceiver = new MpscRingBufferReader(smallReceiveBuffer);
+        final int alignment = MpscRingBuffer.alignment(smallReceiveBuffer);
+        final long[] position = new long[1];
+
+        tcpManager.launch(dedicatedNuklei);
+
+        tcpManagerProxy.attach(SMALL_RECEIVE_PORT, new InetAddress[0], smallReceiveBuffer);
+
+        // TODO: this could race with the attach completing and doing the bind
+        Thread.sleep(100);
+
+        senderChannel = SocketChannel.open();
+        senderChannel.connect(new InetSocketAddress("localhost", SMALL_RECEIVE_PORT));
+
+        receiveSingleMessage(smallReceiver, (typeId, buffer, offset, length) ->
+        {
+            assertThat(typeId, is(TcpManagerEvents.NEW_CONNECTION_TYPE_ID));
+            assertThat(MpscRingBuffer.messageSequence(buffer, offset), is(position[0]));
+            position[0] += BitUtil.align(length + MpscRingBuffer.HEADER_LENGTH, alignment);
+        });
+
+        // wraps the ring several times, each message following straight on from the one before
+        for (int i = 0; i < SMALL_MESSAGES; i++)
+        {
+            final int payload = i;
+
+            sendChannelBuffer.clear();
+            sendChannelBuffer.putInt(payload);
+            sendChannelBuffer.flip();
+            senderChannel.write(sendChannelBuffer);
+
+            receiveSingleMessage(smallReceiver, (typeId, buffer, offset, length) ->
+            {
+                assertThat(typeId, is(TcpManagerEvents.RECEIVED_DATA_TYPE_ID));
+                assertThat(length, is(BitUtil.SIZE_OF_LONG + BitUtil.SIZE_OF_INT));
+                assertThat(buffer.getInt(offset + BitUtil.SIZE_OF_LONG), is(payload));
+                assertThat(MpscRingBuffer.messageSequence(buffer, offset), is(position[0]));
+                position[0] += BitUtil.align(length + MpscRingBuffer.HEADER_LENGTH, alignment);
+            });
+        }
+
+        assertThat(smallReceiver.position(), is(position[0]));
+    }
+
+    @Test(timeout = 3000)
+    public void shouldHoldBackReceivedDataWhileSmallReceiveBufferIsFull() throws Exception
+    {
+        final AtomicBuffer smallReceiveBuffer = new AtomicBuffer(ByteBuffer.allocate(SMALL_RECEIVE_BUFFER_SIZE));
+        final MpscRingBufferReader smallReceiver = new MpscRingBufferReader(smallReceiveBuffer);
+        final int[] received = new int[1];
+
+        tcpManager.launch(dedicatedNuklei);
+
+        tcpManagerProxy.attach(BACK_PRESSURE_PORT, new InetAddress[0], smallReceiveBuffer);
+
+        // TODO: this could race with the attach completing and doing the bind
+        Thread.sleep(100);
+
+        senderChannel = SocketChannel.open();
+        senderChannel.connect(new InetSocketAddress("localhost", BACK_PRESSURE_PORT));
+
+        receiveSingleMessage(smallReceiver, (typeId, buffer, offset, length) ->
+            assertThat(typeId, is(TcpManagerEvents.NEW_CONNECTION_TYPE_ID)));
+
+        // more than the receive buffer holds, so it arrives as several reads that wait for room in turn
+        final ByteBuffer largeMessage = ByteBuffer.allocate(LARGE_MESSAGE_LENGTH);
+        for (int i = 0; i < LARGE_MESSAGE_LENGTH; i++)
+        {
+            largeMessage.put((byte)i);
+        }
+        largeMessage.flip();
+        senderChannel.write(largeMessage);
+
+        while (received[0] < LARGE_MESSAGE_LENGTH)
+        {
+            receiveSingleMessage(smallReceiver, (typeId, buffer, offset, length) ->
+            {
+                assertThat(typeId, is(TcpManagerEvents.RECEIVED_DATA_TYPE_ID));
+                assertThat(buffer.getLong(offset), is(0L));
+
+                for (int i = BitUtil.SIZE_OF_LONG; i < length; i++)
+                {
+                    assertThat(buffer.getByte(offset + i), is((byte)received[0]++));
+                }
+            });
+        }
+
+        assertThat(received[0], is(LARGE_MESSAGE_LENGTH));
+    }
+
+    @Test(timeout = 3000)
+    public void shouldPublishConnectionClosedOnceWhenPeerCloses() throws Exception
+    {
+        tcpManager.launch(dedicatedNuklei);
+
+        tcpManagerProxy.attach(CLOSE_PORT, new InetAddress[0], receiveBuffer);
+
+        // TODO: this could race with the attach completing and doing the bind
+        Thread.sleep(100);
+
+        senderChannel = SocketChannel.open();
+        senderChannel.connect(new InetSocketAddress("localhost", CLOSE_PORT));
+
+        receiveSingleMessage((typeId, buffer, offset, length) ->
+            assertThat(typeId, is(TcpManagerEvents.NEW_CONNECTION_TYPE_ID)));
+
+        senderChannel.close();
+
+        receiveSingleMessage((typeId, buffer, offset, length) ->
+        {
+            assertThat(typeId, is(TcpManagerEvents.CONNECTION_CLOSED_TYPE_ID));
+            assertThat(length, is(BitUtil.SIZE_OF_LONG));
+            assertThat(buffer.getLong(offset), is(0L));
+        });
+
+        // long enough for the receiver to go around many times, with nothing more to publish for the channel
+        Thread.sleep(100);
+
+        assertThat(receiver.read((typeId, buffer, offset, length) -> { }, Integer.MAX_VALUE), is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotHaveIdlersWithoutSelectTimeout()
+    {
+        tcpManager.sendIdler();
+    }
+
     private int receiveSingleMessage(final MpscRingBufferReader.ReadHandler handler)
+    {
+        return receiveSingleMessage(receiver, handler);
+    }
+
+    private int receiveSingleMessage(final MpscRingBufferReader reader, final MpscRingBufferReader.ReadHandler handler)
     {
         int messages;
 
-        while (0 == (messages = receiver.read(handler, 1)))
+        while (0 == (messages = reader.read(handler, 1)))
         {
             Thread.yield();
         }
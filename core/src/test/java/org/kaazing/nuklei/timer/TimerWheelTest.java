@@ -0,0 +1,174 @@
+/*
+ * Copyright 2014 Kaazing Corporation, All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kaazing.nuklei.timer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.fail;
+
+public class TimerWheelTest
+{
+    private static final long TICK_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final long[] now = { 0 };
+    private final List<Long> expired = new ArrayList<>();
+    private final TimerHandler handler = expired::add;
+    private final TimerWheel wheel = new TimerWheel(() -> now[0], TICK_NS, 4);
+
+    @Test
+    public void shouldExpireTimerOnceDeadlineHasPassed()
+    {
+        final long timerId = wheel.scheduleTimer(10 * TICK_NS, handler);
+
+        now[0] = 9 * TICK_NS;
+        assertThat(wheel.process(), is(0));
+
+        now[0] = 10 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+        assertThat(expired, contains(timerId));
+        assertThat(wheel.timerCount(), is(0));
+    }
+
+    @Test
+    public void shouldExpireTimerInPastOnNextTick()
+    {
+        now[0] = 5 * TICK_NS;
+        wheel.process();
+
+        final long timerId = wheel.scheduleTimer(TICK_NS, handler);
+
+        assertThat(wheel.process(), is(0));
+
+        now[0] = 6 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+        assertThat(expired, contains(timerId));
+    }
+
+    @Test
+    public void shouldNotExpireCancelledTimer()
+    {
+        final long timerId = wheel.scheduleTimer(10 * TICK_NS, handler);
+
+        assertThat(wheel.cancelTimer(timerId), is(true));
+        assertThat(wheel.cancelTimer(timerId), is(false));
+
+        now[0] = 20 * TICK_NS;
+        assertThat(wheel.process(), is(0));
+        assertThat(expired, is(empty()));
+    }
+
+    @Test
+    public void shouldCascadeTimersFromHigherLevels()
+    {
+        final long level1Id = wheel.scheduleTimer(1000 * TICK_NS, handler);
+        final long level2Id = wheel.scheduleTimer(100_000 * TICK_NS, handler);
+        final long level3Id = wheel.scheduleTimer(20_000_000 * TICK_NS, handler);
+
+        now[0] = 999 * TICK_NS;
+        assertThat(wheel.process(), is(0));
+
+        now[0] = 1000 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+
+        now[0] = 99_999 * TICK_NS;
+        assertThat(wheel.process(), is(0));
+
+        now[0] = 100_000 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+
+        now[0] = 19_999_999 * TICK_NS;
+        assertThat(wheel.process(), is(0));
+
+        now[0] = 20_000_000 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+
+        assertThat(expired, contains(level1Id, level2Id, level3Id));
+    }
+
+    @Test
+    public void shouldGrowAndReuseTimerSlots()
+    {
+        final List<Long> timerIds = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++)
+        {
+            timerIds.add(wheel.scheduleTimer((i + 1) * TICK_NS, handler));
+        }
+
+        assertThat(wheel.timerCount(), is(100));
+
+        now[0] = 100 * TICK_NS;
+        assertThat(wheel.process(), is(100));
+        assertThat(expired, is(timerIds));
+
+        final long timerId = wheel.scheduleTimer(200 * TICK_NS, handler);
+
+        assertThat(timerIds.contains(timerId), is(false));
+        assertThat(wheel.cancelTimer(timerIds.get(0)), is(false));
+        assertThat(wheel.cancelTimer(timerId), is(true));
+    }
+
+    @Test
+    public void shouldKeepTimersExpiringOnSameTickWhenHandlerThrows()
+    {
+        final long firstId = wheel.scheduleTimer(10 * TICK_NS, (timerId) ->
+        {
+            throw new IllegalStateException("expiry failed");
+        });
+        final long secondId = wheel.scheduleTimer(10 * TICK_NS, handler);
+
+        now[0] = 10 * TICK_NS;
+
+        try
+        {
+            wheel.process();
+            fail("handler should have thrown");
+        }
+        catch (final IllegalStateException ex)
+        {
+            assertThat(ex.getMessage(), is("expiry failed"));
+        }
+
+        assertThat(expired, is(empty()));
+        assertThat(wheel.timerCount(), is(1));
+
+        assertThat(wheel.process(), is(1));
+        assertThat(expired, contains(secondId));
+        assertThat(wheel.cancelTimer(firstId), is(false));
+    }
+
+    @Test
+    public void shouldAllowHandlerToCancelTimerExpiringOnSameTick()
+    {
+        final long[] otherId = new long[1];
+
+        wheel.scheduleTimer(10 * TICK_NS, (timerId) -> assertThat(wheel.cancelTimer(otherId[0]), is(true)));
+        otherId[0] = wheel.scheduleTimer(10 * TICK_NS, handler);
+
+        now[0] = 10 * TICK_NS;
+        assertThat(wheel.process(), is(1));
+        assertThat(expired, is(empty()));
+        assertThat(wheel.timerCount(), is(0));
+    }
+}